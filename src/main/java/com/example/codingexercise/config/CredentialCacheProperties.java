@@ -0,0 +1,19 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "security.credential-cache")
+public class CredentialCacheProperties {
+
+    private boolean enabled = true;
+    private long maximumSize = 10000;
+    // How long a verified credential skips the BCrypt check. Entries are keyed by the stored hash, so a changed
+    // password stops matching right away; the TTL only bounds how long an entry stays in memory.
+    private Duration ttl = Duration.ofMinutes(5);
+}
@@ -0,0 +1,23 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "currency")
+public class CurrencyProperties {
+
+    private String baseUrl = "https://api.frankfurter.app";
+    // Rates older than this are refreshed in the background while the current table keeps being served
+    private Duration refreshInterval = Duration.ofHours(1);
+    // Rates older than this are never served; the next conversion waits for a fresh table
+    private Duration maxStaleness = Duration.ofHours(24);
+    // After a failed background refresh, reads don't trigger another one for this long
+    private Duration refreshRetryInterval = Duration.ofMinutes(1);
+    // Threads fetching rates off the request thread; fetches are shared, so most of them only wait for one
+    private int maxConcurrency = 4;
+}
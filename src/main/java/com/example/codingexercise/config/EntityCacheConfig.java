@@ -0,0 +1,87 @@
+package com.example.codingexercise.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+
+// Second-level cache for packages, backed by Caffeine through JCache. Hibernate keeps it consistent
+// with every write made through the persistence context, including bulk JPQL updates.
+@Configuration
+public class EntityCacheConfig {
+
+    public static final String PACKAGE_REGION = "product-package";
+    public static final String PACKAGE_PRODUCT_IDS_REGION = "product-package-product-ids";
+
+    private static final List<String> REGIONS = List.of(PACKAGE_REGION, PACKAGE_PRODUCT_IDS_REGION);
+
+    // A provider instance of our own rather than the JVM-wide default, so every application context gets its own caches
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        REGIONS.forEach(region -> cacheManager.createCache(region, regionConfiguration(properties)));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(EntityCacheProperties properties,
+                CacheManager entityCacheManager) {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, properties.isEnabled());
+            if (properties.isEnabled()) {
+                hibernateProperties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+                // every region is created above with its limits; a missing one is a mapping mistake
+                hibernateProperties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            }
+        };
+    }
+
+    // Same meter names as hibernate-micrometer, which isn't published for this Hibernate version
+    @Bean
+    public MeterBinder entityCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            REGIONS.forEach(region -> {
+                regionCounter("hibernate.second.level.cache.requests", region, statistics, CacheRegionStatistics::getHitCount)
+                        .tag("result", "hit").register(registry);
+                regionCounter("hibernate.second.level.cache.requests", region, statistics, CacheRegionStatistics::getMissCount)
+                        .tag("result", "miss").register(registry);
+                regionCounter("hibernate.second.level.cache.puts", region, statistics, CacheRegionStatistics::getPutCount)
+                        .register(registry);
+            });
+        };
+    }
+
+    private static FunctionCounter.Builder<Statistics> regionCounter(String name, String region, Statistics statistics,
+                ToLongFunction<CacheRegionStatistics> count) {
+        return FunctionCounter.builder(name, statistics, stats -> {
+                    // null while statistics are disabled or the cache is switched off
+                    CacheRegionStatistics regionStatistics = stats.getCacheRegionStatistics(region);
+                    return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+                })
+                .tag("region", region);
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(EntityCacheProperties properties) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(properties.getMaximumSize()));
+        configuration.setExpireAfterWrite(OptionalLong.of(properties.getTtl().toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "packages.entity-cache")
+public class EntityCacheProperties {
+
+    private boolean enabled = true;
+    // Per region, so the packages and their productIds collections are limited separately
+    private long maximumSize = 10000;
+    private Duration ttl = Duration.ofMinutes(10);
+}
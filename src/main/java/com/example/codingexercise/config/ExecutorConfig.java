@@ -0,0 +1,122 @@
+package com.example.codingexercise.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor productLookupExecutor(ProductLookupProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxConcurrency());
+        executor.setMaxPoolSize(properties.getMaxConcurrency());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("product-lookup-");
+        // when saturated the request thread resolves the product itself instead of failing
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // A virtual thread per lookup; the concurrency limit replaces the pool size as the bound
+    // on how many lookups run against the product service at once
+    @Bean(name = "productLookupExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualProductLookupExecutor(ProductLookupProperties properties) {
+        return virtualThreadExecutor("product-lookup-", properties.getMaxConcurrency());
+    }
+
+    // Runs the individual (possibly hedged) requests to the product service
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor productRequestExecutor(ProductResilienceProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getHedging().getMaxConcurrency());
+        executor.setMaxPoolSize(properties.getHedging().getMaxConcurrency());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("product-request-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    @Bean(name = "productRequestExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualProductRequestExecutor(ProductResilienceProperties properties) {
+        return virtualThreadExecutor("product-request-", properties.getHedging().getMaxConcurrency());
+    }
+
+    // Fetches exchange rates for reads that can't be served from memory, and refreshes the ones about to go stale,
+    // so a slow currency service never holds up the scheduler shared by every scheduled job
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor currencyExecutor(CurrencyProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getMaxConcurrency());
+        executor.setMaxPoolSize(properties.getMaxConcurrency());
+        executor.setThreadNamePrefix("currency-");
+        return executor;
+    }
+
+    @Bean(name = "currencyExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualCurrencyExecutor(CurrencyProperties properties) {
+        return virtualThreadExecutor("currency-", properties.getMaxConcurrency());
+    }
+
+    // Writes the change feed to its subscribers. A write to a slow client blocks its thread until the client reads,
+    // so every subscriber writes from a thread of its own, which is let go once it is idle; the pool is bounded by
+    // the subscriber limit.
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor packageStreamExecutor(PackageProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(0);
+        executor.setMaxPoolSize(properties.getStream().getMaxSubscribers());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("package-stream-");
+        return executor;
+    }
+
+    @Bean(name = "packageStreamExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualPackageStreamExecutor() {
+        return virtualThreadExecutor("package-stream-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+    }
+
+    // Declaring our own executor switches off Boot's default one, which Spring MVC uses for
+    // streaming and async responses, so it is recreated here from the spring.task.execution settings
+    @Lazy
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Boot configures this builder for virtual threads when spring.threads.virtual.enabled is set
+    @Lazy
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualApplicationTaskExecutor(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+}
@@ -1,15 +1,80 @@
 package com.example.codingexercise.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+
 @Configuration
 public class GatewayConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public CloseableHttpClient productHttpClient(GatewayProperties properties, MeterRegistry meterRegistry) {
+        return pooledHttpClient("product-service", properties.getProduct(), meterRegistry);
+    }
+
+    @Bean
+    public CloseableHttpClient currencyHttpClient(GatewayProperties properties, MeterRegistry meterRegistry) {
+        return pooledHttpClient("currency-service", properties.getCurrency(), meterRegistry);
     }
 
+    @Bean
+    public RestTemplate productRestTemplate(RestTemplateBuilder builder, ProductServiceProperties properties,
+                @Qualifier("productHttpClient") CloseableHttpClient productHttpClient) {
+        return builder.rootUri(properties.getBaseUrl())
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(productHttpClient))
+                .build();
+    }
+
+    @Bean
+    public RestTemplate currencyRestTemplate(RestTemplateBuilder builder,
+                @Qualifier("currencyHttpClient") CloseableHttpClient currencyHttpClient) {
+        return builder.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(currencyHttpClient)).build();
+    }
+
+    // Non-blocking client behind the asynchronous product lookups
+    @Bean
+    public HttpClient productAsyncHttpClient(GatewayProperties properties) {
+        return HttpClient.newBuilder()
+                .connectTimeout(properties.getProduct().getConnectTimeout())
+                .build();
+    }
+
+    private CloseableHttpClient pooledHttpClient(String poolName, GatewayProperties.Client settings, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.getMaxConnections())
+                .setMaxConnPerRoute(settings.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(settings.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(settings.getReadTimeout()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, poolName).bindTo(meterRegistry);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(settings.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(settings.getReadTimeout()))
+                .setConnectionKeepAlive(TimeValue.of(settings.getKeepAlive()))
+                .build();
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(settings.getKeepAlive()))
+                .build();
+    }
 }
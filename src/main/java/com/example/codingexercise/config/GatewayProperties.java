@@ -0,0 +1,31 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway")
+public class GatewayProperties {
+
+    private Client product = new Client();
+    private Client currency = new Client();
+
+    @Getter
+    @Setter
+    public static class Client {
+
+        private int maxConnections = 100;
+        private int maxConnectionsPerRoute = 50;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        // Time allowed between two packets of the response, and until the response starts
+        private Duration readTimeout = Duration.ofSeconds(5);
+        // Time a request may wait for a free pooled connection
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+        // How long idle connections are kept open for reuse when the server doesn't say
+        private Duration keepAlive = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "packages")
+public class PackageProperties {
+
+    private int defaultPageSize = 100;
+    private int maxPageSize = 500;
+    private int maxBulkSize = 5000;
+    // Serve single-package reads from the non-blocking product lookups instead of blocking the request thread
+    private boolean asyncReads = false;
+    private ReadModel readModel = new ReadModel();
+    private Changes changes = new Changes();
+    private Stream stream = new Stream();
+
+    @Getter
+    @Setter
+    public static class ReadModel {
+
+        private boolean enabled = false;
+        // Snapshots older than this are still served but refreshed in the background
+        private Duration freshness = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Changes {
+
+        // Changes younger than this are left for the next sync, as writes that started earlier may not be committed yet
+        private Duration settleTime = Duration.ofSeconds(2);
+        // Deletions are reported for this long; mirrors that last synced before have to reload the whole catalog
+        private Duration tombstoneRetention = Duration.ofDays(7);
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        // Latest events kept in memory for subscribers resuming with a Last-Event-ID
+        private int bufferSize = 1000;
+        // Events waiting to be written to one subscriber before it is disconnected as too slow
+        private int subscriberBufferSize = 256;
+        // Subscribers connected at once; each may hold a sender thread, so more are refused with 503
+        private int maxSubscribers = 1000;
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+}
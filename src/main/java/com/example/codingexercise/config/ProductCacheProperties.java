@@ -0,0 +1,19 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "product.cache")
+public class ProductCacheProperties {
+
+    private boolean enabled = true;
+    private long maximumSize = 1000;
+    private Duration ttl = Duration.ofMinutes(5);
+    // Applied to products the upstream answered with 404
+    private Duration negativeTtl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,19 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "product.lookup")
+public class ProductLookupProperties {
+
+    private boolean parallel = true;
+    private int maxConcurrency = 16;
+    private int queueCapacity = 1000;
+    // Deadline for resolving all products of one package
+    private Duration timeout = Duration.ofSeconds(5);
+}
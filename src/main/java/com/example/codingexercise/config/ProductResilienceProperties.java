@@ -0,0 +1,45 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "product.resilience")
+public class ProductResilienceProperties {
+
+    private Hedging hedging = new Hedging();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    @Getter
+    @Setter
+    public static class Hedging {
+
+        private boolean enabled = false;
+        // A second request is sent when the first is slower than this percentile of recent requests
+        private double percentile = 95.0;
+        private int windowSize = 256;
+        // Until this many latencies have been observed the initial delay is used
+        private int minSamples = 20;
+        private Duration initialDelay = Duration.ofMillis(200);
+        private Duration minDelay = Duration.ofMillis(20);
+        private int maxConcurrency = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+        private int permittedNumberOfCallsInHalfOpenState = 5;
+        // How many products are remembered to be served while the breaker is open
+        private long lastKnownMaximumSize = 10000;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.codingexercise.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "product.service")
+public class ProductServiceProperties {
+
+    private String baseUrl = "https://product-service.herokuapp.com/api/v1";
+}
@@ -1,5 +1,7 @@
 package com.example.codingexercise.config;
 
+import com.example.codingexercise.security.CachingPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -19,6 +21,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/packages/**").authenticated()
+                        .requestMatchers("/internal/**").authenticated()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").authenticated()
                         .anyRequest().permitAll()
                 )
                 .httpBasic(Customizer.withDefaults());
@@ -26,7 +31,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(CredentialCacheProperties credentialCacheProperties, MeterRegistry meterRegistry) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), credentialCacheProperties, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.codingexercise.config;
+
+import com.example.codingexercise.timing.RequestStages;
+import com.example.codingexercise.timing.ServerTimingFilter;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.util.concurrent.TimeUnit;
+
+// Opt-in Server-Timing header breaking each request down into database, product and currency time
+@Configuration
+@ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig {
+
+    @Bean
+    public ServerTimingFilter serverTimingFilter() {
+        return new ServerTimingFilter();
+    }
+
+    // Same hook Spring Boot uses for its spring.data.repository.invocations timer
+    @Bean
+    public static BeanPostProcessor repositoryStageTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(repositoryFactory ->
+                            repositoryFactory.addInvocationListener(invocation -> {
+                                RequestStages stages = RequestStages.current();
+                                if (stages != null) {
+                                    stages.add(RequestStages.DB, invocation.getDuration(TimeUnit.NANOSECONDS));
+                                }
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,22 +1,61 @@
 package com.example.codingexercise.controller;
 
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.exception.PreconditionFailedException;
+import com.example.codingexercise.gateway.dto.BulkItemResult;
+import com.example.codingexercise.gateway.dto.PackageChanges;
+import com.example.codingexercise.gateway.dto.PackageFilter;
 import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.gateway.dto.ProductPackagePage;
+import com.example.codingexercise.service.PackageBulkService;
+import com.example.codingexercise.service.PackageChangeFeed;
+import com.example.codingexercise.service.PackageChangeService;
+import com.example.codingexercise.service.PackagePage;
 import com.example.codingexercise.service.PackageService;
 import com.example.codingexercise.validation.CurrencyValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/packages")
 public class PackageController {
 
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final PackageService packageService;
+    private final PackageBulkService packageBulkService;
+    private final PackageChangeService packageChangeService;
+    private final PackageChangeFeed packageChangeFeed;
+    private final PackageProperties packageProperties;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PackageController(PackageService packageService) {
+    public PackageController(PackageService packageService, PackageBulkService packageBulkService,
+                             PackageChangeService packageChangeService, PackageChangeFeed packageChangeFeed,
+                             PackageProperties packageProperties, ObjectMapper objectMapper) {
         this.packageService = packageService;
+        this.packageBulkService = packageBulkService;
+        this.packageChangeService = packageChangeService;
+        this.packageChangeFeed = packageChangeFeed;
+        this.packageProperties = packageProperties;
+        this.objectMapper = objectMapper;
     }
 
     @RequestMapping(method = RequestMethod.POST)
@@ -24,27 +63,219 @@ public class PackageController {
         return packageService.create(productPackage);
     }
 
+    @PostMapping("/bulk")
+    public List<BulkItemResult> createAll(@RequestBody List<ProductPackageDto> productPackages) {
+        return packageBulkService.createAll(productPackages);
+    }
+
+    // Reads without converted prices carry an ETag; converted prices follow the exchange rates, which the
+    // package version doesn't cover. Only reads resolving products asynchronously return a future of the
+    // response; every other read is answered on the request thread, without an async dispatch.
     @GetMapping("/{id}")
-    public ProductPackageDto get(@PathVariable Long id, @RequestParam(required = false) String currency) {
+    public Object get(@PathVariable Long id,
+                      @RequestParam(required = false) String currency,
+                      @RequestParam(required = false) List<String> currencies,
+                      @RequestParam(required = false) List<String> expand,
+                      @RequestParam(required = false) List<String> fields,
+                      WebRequest request) {
+        if (currency != null && currencies != null) {
+            throw new IllegalArgumentException("Use either currency or currencies");
+        }
         if (currency != null) {
             CurrencyValidator.validate(currency);
-            return packageService.getProductPackageWithCurrency(id, currency);
         }
-        return packageService.getProductPackage(id);
+        if (currencies != null) {
+            CurrencyValidator.validate(currencies);
+        }
+        if (currency != null || currencies != null) {
+            return getWithConvertedPrices(id, currency, currencies, PackageProjection.of(expand, fields).withPrice());
+        }
+        PackageProjection projection = PackageProjection.of(expand, fields);
+        // the ETag and the body come from the same load, so they always describe the same version
+        ProductPackageDto productPackage = packageService.findProductPackage(id);
+        String eTag = eTag(productPackage.getVersion());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        if (!projection.expandProducts()) {
+            return response(productPackage, eTag, projection);
+        }
+        if (packageProperties.isAsyncReads()) {
+            return packageService.withProductsAsync(productPackage)
+                    .thenApply(resolved -> response(resolved, eTag, projection));
+        }
+        return response(packageService.withProducts(productPackage), eTag, projection);
     }
 
     @GetMapping
-    public List<ProductPackageDto> getAll() {
-        return packageService.getAllProductPackages();
+    public ResponseEntity<List<Object>> getAll(@RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) String productId,
+                                               @RequestParam(required = false) String namePrefix,
+                                               @RequestParam(required = false) Double minPrice,
+                                               @RequestParam(required = false) Double maxPrice,
+                                               @RequestParam(required = false) List<String> currencies,
+                                               @RequestParam(required = false) List<String> expand,
+                                               @RequestParam(required = false) List<String> fields,
+                                               WebRequest request) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice: " + minPrice + " is greater than maxPrice: " + maxPrice);
+        }
+        if (currencies != null) {
+            CurrencyValidator.validate(currencies);
+        }
+        PackageProjection projection = currencies != null
+                ? PackageProjection.of(expand, fields).withPrice()
+                : PackageProjection.of(expand, fields);
+        PackageFilter filter = new PackageFilter(productId, namePrefix, minPrice, maxPrice);
+        PackagePage packagePage = packageService.findProductPackagePage(after, pageSize(limit), filter);
+        String eTag = currencies == null ? eTag(packagePage.version()) : null;
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        ProductPackagePage page = packageService.toProductPackagePage(packagePage, projection.expandProducts());
+        if (currencies != null) {
+            packageService.addConvertedPrices(page.packages(), currencies);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        if (page.nextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page.packages().stream()
+                .map(productPackage -> projection.apply(productPackage, objectMapper))
+                .toList());
+    }
+
+    @GetMapping(params = "changedSince")
+    public ResponseEntity<PackageChanges<Object>> getChanges(@RequestParam String changedSince,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             @RequestParam(required = false) List<String> expand,
+                                                             @RequestParam(required = false) List<String> fields) {
+        Instant since;
+        try {
+            since = Instant.parse(changedSince);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid changedSince: " + changedSince + ", expected an ISO-8601 instant");
+        }
+        PackageProjection projection = PackageProjection.of(expand, fields);
+        PackageChanges<ProductPackageDto> changes = packageChangeService.getChanges(since, pageSize(limit),
+                projection.expandProducts());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (changes.hasMore()) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("changedSince", changes.cursor())
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(new PackageChanges<>(changes.packages().stream()
+                .map(productPackage -> projection.apply(productPackage, objectMapper))
+                .toList(), changes.deleted(), changes.cursor(), changes.hasMore()));
+    }
+
+    // EventSource clients send Last-Event-ID by themselves when they reconnect
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return packageChangeFeed.subscribe(lastEventId);
+    }
+
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody export() {
+        return outputStream -> {
+            packageService.streamProductPackages(productPackage -> writeLine(outputStream, productPackage));
+            outputStream.flush();
+        };
     }
 
+    // With If-Match set to the ETag of an earlier read, the update fails with 412 if the package changed since
     @PutMapping("/{id}")
-    public ProductPackageDto update(@PathVariable Long id, @RequestBody ProductPackageDto productPackage) {
-        return packageService.update(id, productPackage);
+    public ResponseEntity<ProductPackageDto> update(@PathVariable Long id,
+                                                    @RequestBody ProductPackageDto productPackage,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                    String ifMatch) {
+        ProductPackageDto updated = packageService.update(id, productPackage, expectedVersion(id, ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updated.getVersion())).body(updated);
+    }
+
+    @PutMapping("/bulk")
+    public List<BulkItemResult> updateAll(@RequestBody List<ProductPackageDto> productPackages) {
+        return packageBulkService.updateAll(productPackages);
     }
 
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         packageService.delete(id);
     }
+
+    private Object getWithConvertedPrices(Long id, String currency, List<String> currencies,
+                                          PackageProjection projection) {
+        if (packageProperties.isAsyncReads()) {
+            CompletableFuture<ProductPackageDto> productPackage = currency != null
+                    ? packageService.getProductPackageWithCurrencyAsync(id, currency)
+                    : packageService.getProductPackageAsync(id)
+                            .thenCompose(resolved -> packageService.addConvertedPricesAsync(resolved, currencies));
+            return productPackage.thenApply(resolved -> response(resolved, null, projection));
+        }
+        ProductPackageDto productPackage;
+        if (currency != null) {
+            productPackage = packageService.getProductPackageWithCurrency(id, currency);
+        } else {
+            productPackage = packageService.getProductPackage(id);
+            packageService.addConvertedPrices(List.of(productPackage), currencies);
+        }
+        return response(productPackage, null, projection);
+    }
+
+    private ResponseEntity<Object> response(ProductPackageDto productPackage, String eTag, PackageProjection projection) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (eTag != null) {
+            response.eTag(eTag);
+        }
+        return response.body(projection.apply(productPackage, objectMapper));
+    }
+
+    private static String eTag(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    // "*" only asks for the package to exist, which the update checks anyway
+    private static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            try {
+                return Long.valueOf(eTag.substring(1, eTag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not an ETag of a package read, so it can't match
+            }
+        }
+        throw new PreconditionFailedException("If-Match: " + ifMatch + " does not match packageId: " + id);
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return packageProperties.getDefaultPageSize();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        return Math.min(limit, packageProperties.getMaxPageSize());
+    }
+
+    private void writeLine(OutputStream outputStream, ProductPackageDto productPackage) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(productPackage));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
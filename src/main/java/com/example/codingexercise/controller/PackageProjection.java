@@ -0,0 +1,69 @@
+package com.example.codingexercise.controller;
+
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// What a read returns, from the expand and fields parameters. Without either parameter reads stay fully
+// expanded as before; otherwise products are resolved (and the price computed) only when asked for.
+record PackageProjection(boolean expandProducts, Set<String> fields) {
+
+    private static final String PRODUCTS = "products";
+    private static final String PRICE = "price";
+    private static final Set<String> EXPANSIONS = Set.of(PRODUCTS);
+    private static final Set<String> FIELDS = Set.of("id", "name", "description", "productIds", PRODUCTS, PRICE,
+            "prices");
+
+    static PackageProjection of(List<String> expand, List<String> fields) {
+        if (expand == null && fields == null) {
+            return new PackageProjection(true, null);
+        }
+        boolean expandProducts = expand != null && validated(expand, EXPANSIONS, "expand").contains(PRODUCTS);
+        Set<String> selectedFields = fields == null ? null : validated(fields, FIELDS, "field");
+        if (selectedFields != null && (selectedFields.contains(PRODUCTS) || selectedFields.contains(PRICE))) {
+            expandProducts = true;
+        }
+        return new PackageProjection(expandProducts, selectedFields);
+    }
+
+    // Converted prices need the products, whatever else was asked for
+    PackageProjection withPrice() {
+        return expandProducts ? this : new PackageProjection(true, fields);
+    }
+
+    boolean isFull() {
+        return expandProducts && fields == null;
+    }
+
+    Object apply(ProductPackageDto productPackage, ObjectMapper objectMapper) {
+        if (isFull()) {
+            return productPackage;
+        }
+        ObjectNode node = objectMapper.valueToTree(productPackage);
+        if (fields != null) {
+            node.retain(fields);
+        } else {
+            node.remove(List.of(PRODUCTS, PRICE));
+        }
+        return node;
+    }
+
+    private static Set<String> validated(List<String> values, Set<String> allowed, String kind) {
+        Set<String> selected = new LinkedHashSet<>();
+        for (String value : values) {
+            String trimmed = value.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(trimmed)) {
+                throw new IllegalArgumentException("Invalid " + kind + ": " + trimmed);
+            }
+            selected.add(trimmed);
+        }
+        return selected;
+    }
+}
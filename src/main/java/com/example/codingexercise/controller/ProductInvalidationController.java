@@ -0,0 +1,26 @@
+package com.example.codingexercise.controller;
+
+import com.example.codingexercise.gateway.dto.ProductInvalidationRequest;
+import com.example.codingexercise.gateway.dto.ProductInvalidationResult;
+import com.example.codingexercise.service.ProductInvalidationService;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// Webhook for the product service (or an operator) to report products whose data changed
+@RestController
+@RequestMapping("/internal/products")
+public class ProductInvalidationController {
+
+    private final ProductInvalidationService productInvalidationService;
+
+    public ProductInvalidationController(ProductInvalidationService productInvalidationService) {
+        this.productInvalidationService = productInvalidationService;
+    }
+
+    @PostMapping("/invalidations")
+    public ProductInvalidationResult invalidate(@RequestBody ProductInvalidationRequest request) {
+        return productInvalidationService.invalidate(request.productIds());
+    }
+}
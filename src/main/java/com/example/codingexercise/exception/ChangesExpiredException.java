@@ -0,0 +1,7 @@
+package com.example.codingexercise.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.codingexercise.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.DisconnectedClientHelper;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -24,8 +27,49 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(UpstreamTimeoutException.class)
+    public ResponseEntity<?> handleUpstreamTimeoutException(UpstreamTimeoutException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(HttpStatus.GATEWAY_TIMEOUT.value(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<?> handleUpstreamUnavailableException(UpstreamUnavailableException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<?> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(HttpStatus.PRECONDITION_FAILED.value(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<?> handleChangesExpiredException(ChangesExpiredException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(HttpStatus.GONE.value(), ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.GONE);
+    }
+
+    // Stream clients only accept text/event-stream, so there is no ErrorDetails body to send them
+    @ExceptionHandler(TooManySubscribersException.class)
+    public ResponseEntity<?> handleTooManySubscribersException(TooManySubscribersException ex, WebRequest request) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+
+    // A concurrent request changed the package between reading and saving it
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        ErrorDetails errorDetails = new ErrorDetails(HttpStatus.CONFLICT.value(), "Package was modified concurrently, read it again and retry", request.getDescription(false));
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneralException(Exception ex, WebRequest request) {
+        // the client went away, e.g. from a streamed response, so there is nobody left to write an error to
+        if (DisconnectedClientHelper.isClientDisconnectedException(ex)) {
+            return null;
+        }
         Map<String, Object> body = new HashMap<>();
         body.put("error", "Internal server error");
         body.put("message", ex.getMessage());
@@ -0,0 +1,7 @@
+package com.example.codingexercise.exception;
+
+public class TooManySubscribersException extends RuntimeException {
+    public TooManySubscribersException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.codingexercise.exception;
+
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
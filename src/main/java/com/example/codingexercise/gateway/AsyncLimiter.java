@@ -0,0 +1,67 @@
+package com.example.codingexercise.gateway;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Caps the number of asynchronous requests in flight; requests over the cap wait in a queue
+// instead of on a blocked thread and are started as earlier ones complete
+public class AsyncLimiter {
+
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncLimiter(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> {
+            try {
+                request.get().whenComplete((value, e) -> {
+                    release();
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                release();
+                result.completeExceptionally(e);
+            }
+        });
+        drain();
+        return result;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    inFlight.decrementAndGet();
+                } else {
+                    next.run();
+                }
+            }
+        }
+    }
+}
@@ -1,24 +1,187 @@
 package com.example.codingexercise.gateway;
 
+import com.example.codingexercise.config.CurrencyProperties;
 import com.example.codingexercise.gateway.dto.CurrencyExchange;
+import com.example.codingexercise.jfr.CurrencyConversionEvent;
+import com.example.codingexercise.timing.RequestStages;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Component
 public class CurrencyServiceGateway {
 
+    private static final Logger log = LoggerFactory.getLogger(CurrencyServiceGateway.class);
+    private static final String BASE_CURRENCY = "USD";
+
     private final RestTemplate restTemplate;
+    private final CurrencyProperties properties;
+    private final Executor currencyExecutor;
+    private final Clock clock;
+    private final GatewayTimer timer;
+    private final SingleFlight<String, RateTable> rateFetches = new SingleFlight<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private volatile RateTable rateTable;
+    private volatile Instant nextRefreshAttempt = Instant.MIN;
+
+    @Autowired
+    public CurrencyServiceGateway(@Qualifier("currencyRestTemplate") RestTemplate restTemplate, CurrencyProperties properties,
+                TaskScheduler taskScheduler, @Qualifier("currencyExecutor") Executor currencyExecutor,
+                MeterRegistry meterRegistry) {
+        this(restTemplate, properties, taskScheduler, currencyExecutor, meterRegistry, Clock.systemUTC());
+    }
 
-    public CurrencyServiceGateway(RestTemplate restTemplate) {
+    CurrencyServiceGateway(RestTemplate restTemplate, CurrencyProperties properties, TaskScheduler taskScheduler,
+                Executor currencyExecutor, MeterRegistry meterRegistry, Clock clock) {
         this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.currencyExecutor = currencyExecutor;
+        this.clock = clock;
+        this.timer = new GatewayTimer(meterRegistry, "currency", RequestStages.CURRENCY);
+        Duration refreshInterval = properties.getRefreshInterval();
+        // the scheduler only hands the fetch off, so a slow currency service never holds up other scheduled jobs
+        taskScheduler.scheduleWithFixedDelay(this::scheduleRefresh, clock.instant().plus(refreshInterval), refreshInterval);
     }
 
     public double convertUsdTo(Double amount, String currency) {
-        CurrencyExchange rate = restTemplate.getForObject( "https://api.frankfurter.app/latest?amount={amount}&from=USD&to={currency}", CurrencyExchange.class, amount, currency);
-        if(rate != null && !CollectionUtils.isEmpty(rate.rates())) {
-            return rate.rates().get(currency);
+        if (BASE_CURRENCY.equals(currency)) {
+            return amount;
+        }
+        return timer.record("convertUsdTo", new CurrencyConversionEvent(currency),
+                () -> convert(amount, currency, currentRates()));
+    }
+
+    // Rates are almost always served from memory; only when there are no usable rates does the
+    // fetch run on the currency executor rather than on the caller's thread
+    public CompletableFuture<Double> convertUsdToAsync(Double amount, String currency) {
+        if (BASE_CURRENCY.equals(currency)) {
+            return CompletableFuture.completedFuture(amount);
+        }
+        return timer.recordAsync("convertUsdToAsync", new CurrencyConversionEvent(currency), () -> {
+            Map<String, Double> rates = usableRates();
+            if (rates != null) {
+                return CompletableFuture.completedFuture(convert(amount, currency, rates));
+            }
+            return CompletableFuture.supplyAsync(() -> convert(amount, currency, currentRates()), currencyExecutor);
+        });
+    }
+
+    // Rates from USD to each of the currencies, all read from the same rate table; unknown currencies map to 0.0
+    public Map<String, Double> usdRates(Collection<String> currencies) {
+        if (currencies.stream().allMatch(BASE_CURRENCY::equals)) {
+            return select(currencies, Map.of());
+        }
+        return timer.record("usdRates", new CurrencyConversionEvent(String.join(",", currencies)),
+                () -> select(currencies, currentRates()));
+    }
+
+    public CompletableFuture<Map<String, Double>> usdRatesAsync(Collection<String> currencies) {
+        if (currencies.stream().allMatch(BASE_CURRENCY::equals)) {
+            return CompletableFuture.completedFuture(select(currencies, Map.of()));
+        }
+        return timer.recordAsync("usdRatesAsync", new CurrencyConversionEvent(String.join(",", currencies)), () -> {
+            Map<String, Double> rates = usableRates();
+            if (rates != null) {
+                return CompletableFuture.completedFuture(select(currencies, rates));
+            }
+            return CompletableFuture.supplyAsync(() -> select(currencies, currentRates()), currencyExecutor);
+        });
+    }
+
+    private static Map<String, Double> select(Collection<String> currencies, Map<String, Double> rates) {
+        Map<String, Double> selected = new LinkedHashMap<>();
+        currencies.forEach(currency ->
+                selected.put(currency, BASE_CURRENCY.equals(currency) ? 1.0 : rates.getOrDefault(currency, 0.0)));
+        return selected;
+    }
+
+    private static double convert(Double amount, String currency, Map<String, Double> rates) {
+        Double rate = rates.get(currency);
+        if (rate == null) {
+            return 0.0;
+        }
+        return amount * rate;
+    }
+
+    private Map<String, Double> currentRates() {
+        Map<String, Double> rates = usableRates();
+        return rates != null ? rates : refresh().rates();
+    }
+
+    // Returns null when the rates are missing or too stale to serve and have to be fetched first
+    private Map<String, Double> usableRates() {
+        RateTable current = rateTable;
+        Duration age = current == null ? null : Duration.between(current.fetchedAt(), clock.instant());
+        if (age == null || age.compareTo(properties.getMaxStaleness()) > 0) {
+            return null;
+        }
+        if (age.compareTo(properties.getRefreshInterval()) > 0) {
+            scheduleRefresh();
+        }
+        return current.rates();
+    }
+
+    // At most one refresh, whether triggered by reads or the schedule, is pending at a time, and none while
+    // backing off from a failed one
+    private void scheduleRefresh() {
+        if (clock.instant().isBefore(nextRefreshAttempt) || !refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            currencyExecutor.execute(() -> {
+                try {
+                    refreshInBackground();
+                } finally {
+                    refreshScheduled.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshScheduled.set(false);
+            throw e;
+        }
+    }
+
+    private void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            nextRefreshAttempt = clock.instant().plus(properties.getRefreshRetryInterval());
+            log.warn("Refreshing {} exchange rates failed, keeping rates from {}", BASE_CURRENCY,
+                    rateTable == null ? "never" : rateTable.fetchedAt(), e);
         }
-        return 0.0;
+    }
+
+    private RateTable refresh() {
+        return rateFetches.execute(BASE_CURRENCY, () -> {
+            CurrencyExchange exchange = restTemplate.getForObject(properties.getBaseUrl() + "/latest?from={currency}",
+                    CurrencyExchange.class, BASE_CURRENCY);
+            Map<String, Double> rates = exchange == null || CollectionUtils.isEmpty(exchange.rates())
+                    ? Map.of() : Map.copyOf(exchange.rates());
+            RateTable fetched = new RateTable(rates, clock.instant());
+            if (!rates.isEmpty()) {
+                rateTable = fetched;
+            }
+            return fetched;
+        });
+    }
+
+    private record RateTable(Map<String, Double> rates, Instant fetchedAt) {
     }
 }
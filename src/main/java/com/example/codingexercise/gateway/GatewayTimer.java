@@ -0,0 +1,89 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.jfr.GatewayCallEvent;
+import com.example.codingexercise.timing.RequestStages;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Times calls into a gateway as gateway.requests{gateway,method,outcome}; a null result counts as not_found.
+// With a stage, the call's wall-clock time also goes to the Server-Timing breakdown of the current request.
+// Each call is also emitted as the given flight recorder event.
+class GatewayTimer {
+
+    static final String METRIC = "gateway.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final String gateway;
+    private final String stage;
+
+    GatewayTimer(MeterRegistry meterRegistry, String gateway, String stage) {
+        this.meterRegistry = meterRegistry;
+        this.gateway = gateway;
+        this.stage = stage;
+    }
+
+    <T> T record(String method, GatewayCallEvent event, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startNanos = System.nanoTime();
+        event.begin();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = outcome(result);
+            return result;
+        } finally {
+            commit(event, method, outcome);
+            sample.stop(timer(method, outcome));
+            if (stage != null) {
+                RequestStages.record(stage, startNanos);
+            }
+        }
+    }
+
+    <T> CompletableFuture<T> recordAsync(String method, GatewayCallEvent event, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startNanos = System.nanoTime();
+        RequestStages stages = stage == null ? null : RequestStages.current();
+        event.begin();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            commit(event, method, "error");
+            sample.stop(timer(method, "error"));
+            throw e;
+        }
+        return result.whenComplete((value, e) -> {
+            String outcome = e != null ? "error" : outcome(value);
+            commit(event, method, outcome);
+            sample.stop(timer(method, outcome));
+            if (stages != null) {
+                stages.add(stage, System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    private static void commit(GatewayCallEvent event, String method, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    private static String outcome(Object result) {
+        return result == null ? "not_found" : "success";
+    }
+
+    private Timer timer(String method, String outcome) {
+        return Timer.builder(METRIC)
+                .tag("gateway", gateway)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
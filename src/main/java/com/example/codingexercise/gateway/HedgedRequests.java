@@ -0,0 +1,165 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.config.ProductResilienceProperties;
+import com.example.codingexercise.exception.UpstreamTimeoutException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Sends a second attempt when the first one is slower than a percentile of recently observed
+// latencies and returns whichever attempt succeeds first
+public class HedgedRequests {
+
+    private final ProductResilienceProperties.Hedging settings;
+    private final Executor executor;
+    private final long[] latencies;
+    // A lock rather than synchronized so virtual threads waiting for it don't pin their carrier
+    private final ReentrantLock latencyLock = new ReentrantLock();
+    private int nextLatency;
+    private int latencyCount;
+
+    public HedgedRequests(ProductResilienceProperties.Hedging settings, Executor executor) {
+        this.settings = settings;
+        this.executor = executor;
+        this.latencies = new long[settings.getWindowSize()];
+    }
+
+    public <T> T call(Supplier<T> request) {
+        if (!settings.isEnabled()) {
+            return attempt(request);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        submit(request, result, outstanding);
+        try {
+            return result.get(hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            outstanding.incrementAndGet();
+            submit(request, result, outstanding);
+            return await(result);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamTimeoutException("Interrupted while waiting for the product service");
+        }
+    }
+
+    // Asynchronous variant for requests that don't block a thread; the hedge is started by a timer
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> request) {
+        if (!settings.isEnabled()) {
+            return attemptAsync(request);
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        submitAsync(request, result, outstanding);
+        Executor hedgeTimer = CompletableFuture.delayedExecutor(hedgeDelay().toNanos(), TimeUnit.NANOSECONDS, executor);
+        hedgeTimer.execute(() -> {
+            if (!result.isDone()) {
+                outstanding.incrementAndGet();
+                submitAsync(request, result, outstanding);
+            }
+        });
+        return result;
+    }
+
+    Duration hedgeDelay() {
+        long[] sorted;
+        latencyLock.lock();
+        try {
+            if (latencyCount < settings.getMinSamples()) {
+                return settings.getInitialDelay();
+            }
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        } finally {
+            latencyLock.unlock();
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(settings.getPercentile() / 100.0 * sorted.length) - 1;
+        Duration percentile = Duration.ofNanos(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+        return percentile.compareTo(settings.getMinDelay()) < 0 ? settings.getMinDelay() : percentile;
+    }
+
+    private <T> void submit(Supplier<T> request, CompletableFuture<T> result, AtomicInteger outstanding) {
+        executor.execute(() -> {
+            try {
+                result.complete(attempt(request));
+            } catch (RuntimeException | Error e) {
+                // only fail once every attempt has failed
+                if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    private <T> void submitAsync(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result,
+                                 AtomicInteger outstanding) {
+        attemptAsync(request).whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(Supplier<CompletableFuture<T>> request) {
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = request.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return attempt.whenComplete((value, e) -> {
+            if (e == null) {
+                recordLatency(System.nanoTime() - start);
+            }
+        });
+    }
+
+    private <T> T attempt(Supplier<T> request) {
+        long start = System.nanoTime();
+        T value = request.get();
+        recordLatency(System.nanoTime() - start);
+        return value;
+    }
+
+    private void recordLatency(long nanos) {
+        latencyLock.lock();
+        try {
+            latencies[nextLatency] = nanos;
+            nextLatency = (nextLatency + 1) % latencies.length;
+            latencyCount = Math.min(latencyCount + 1, latencies.length);
+        } finally {
+            latencyLock.unlock();
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UpstreamTimeoutException("Interrupted while waiting for the product service");
+        }
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+}
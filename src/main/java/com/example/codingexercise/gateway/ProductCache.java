@@ -0,0 +1,99 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.config.ProductCacheProperties;
+import com.example.codingexercise.gateway.dto.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+public class ProductCache {
+
+    private final boolean enabled;
+    private final Cache<String, Optional<Product>> cache;
+    // Bumped on every eviction; a load that overlapped one may have read the product from before the change,
+    // so its result is returned but not cached
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProductCache(ProductCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        long ttlNanos = properties.getTtl().toNanos();
+        long negativeTtlNanos = properties.getNegativeTtl().toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, Optional<Product>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<Product> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<Product> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<Product> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    // A null result means "not found" and is cached for the negative TTL. The loader runs outside
+    // the cache's own locking so a slow upstream call never blocks lookups of other keys.
+    public Product get(String id, Function<String, Product> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        Optional<Product> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        long evictionsBeforeLoad = evictions.get();
+        Product product = loader.apply(id);
+        putUnlessEvicted(id, product, evictionsBeforeLoad);
+        return product;
+    }
+
+    public CompletableFuture<Product> getAsync(String id, Function<String, CompletableFuture<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        Optional<Product> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.orElse(null));
+        }
+        long evictionsBeforeLoad = evictions.get();
+        return loader.apply(id).thenApply(product -> {
+            putUnlessEvicted(id, product, evictionsBeforeLoad);
+            return product;
+        });
+    }
+
+    public void evict(String id) {
+        evictions.incrementAndGet();
+        cache.invalidate(id);
+    }
+
+    private void putUnlessEvicted(String id, Product product, long evictionsBeforeLoad) {
+        if (evictions.get() == evictionsBeforeLoad) {
+            cache.put(id, Optional.ofNullable(product));
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
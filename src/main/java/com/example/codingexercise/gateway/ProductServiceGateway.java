@@ -1,31 +1,153 @@
 package com.example.codingexercise.gateway;
 
+import com.example.codingexercise.config.GatewayProperties;
+import com.example.codingexercise.config.ProductResilienceProperties;
+import com.example.codingexercise.exception.UpstreamUnavailableException;
 import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.jfr.ProductLookupEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Component
 public class ProductServiceGateway {
 
+    // Relative to the root URI of the product RestTemplate (product.service.base-url)
+    private static final String PRODUCT_PATH = "/products/{id}";
+
     private final RestTemplate restTemplate;
+    private final HttpClient asyncHttpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration readTimeout;
+    private final AsyncLimiter asyncLimiter;
+    private final ProductCache productCache;
+    private final SingleFlight<String, Product> inFlightLookups = new SingleFlight<>();
+    private final HedgedRequests hedgedRequests;
+    private final CircuitBreaker circuitBreaker;
+    // Last product seen for each id, served while the circuit breaker is open
+    private final Cache<String, Product> lastKnownProducts;
+    // Product time of a request is recorded by ProductResolver, which sees the whole fan-out
+    private final GatewayTimer timer;
 
-    public ProductServiceGateway(RestTemplate restTemplate) {
+    public ProductServiceGateway(@Qualifier("productRestTemplate") RestTemplate restTemplate,
+                @Qualifier("productAsyncHttpClient") HttpClient asyncHttpClient, ObjectMapper objectMapper,
+                GatewayProperties gatewayProperties, ProductCache productCache,
+                ProductResilienceProperties resilienceProperties,
+                @Qualifier("productRequestExecutor") Executor productRequestExecutor, MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.asyncHttpClient = asyncHttpClient;
+        this.objectMapper = objectMapper;
+        this.readTimeout = gatewayProperties.getProduct().getReadTimeout();
+        // the non-blocking client has no connection pool of its own to bound it
+        this.asyncLimiter = new AsyncLimiter(gatewayProperties.getProduct().getMaxConnections());
+        this.productCache = productCache;
+        this.hedgedRequests = new HedgedRequests(resilienceProperties.getHedging(), productRequestExecutor);
+        ProductResilienceProperties.CircuitBreaker breakerSettings = resilienceProperties.getCircuitBreaker();
+        this.circuitBreaker = breakerSettings.isEnabled() ? CircuitBreaker.of("product-service", CircuitBreakerConfig.custom()
+                .failureRateThreshold(breakerSettings.getFailureRateThreshold())
+                .slidingWindowSize(breakerSettings.getSlidingWindowSize())
+                .minimumNumberOfCalls(breakerSettings.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(breakerSettings.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(breakerSettings.getPermittedNumberOfCallsInHalfOpenState())
+                .build()) : null;
+        this.lastKnownProducts = Caffeine.newBuilder().maximumSize(breakerSettings.getLastKnownMaximumSize()).build();
+        this.timer = new GatewayTimer(meterRegistry, "product", null);
     }
 
     public Product getProduct(String id) {
-        String url = "https://product-service.herokuapp.com/api/v1/products/{id}";
+        return timer.record("getProduct", new ProductLookupEvent(id), () -> {
+            try {
+                return productCache.get(id, key -> inFlightLookups.execute(key, () -> fetchProduct(key)));
+            } catch (CallNotPermittedException e) {
+                return lastKnownProduct(id);
+            }
+        });
+    }
+
+    // Same lookup as getProduct, but the request to the product service doesn't hold a thread while in flight
+    public CompletableFuture<Product> getProductAsync(String id) {
+        return timer.recordAsync("getProductAsync", new ProductLookupEvent(id), () -> productCache
+                .getAsync(id, key -> inFlightLookups.executeAsync(key, () -> fetchProductAsync(key)))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof CallNotPermittedException) {
+                        return lastKnownProduct(id);
+                    }
+                    throw e instanceof CompletionException completionException ? completionException : new CompletionException(e);
+                }));
+    }
+
+    public void evict(String id) {
+        productCache.evict(id);
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker == null ? CircuitBreaker.State.DISABLED : circuitBreaker.getState();
+    }
+
+    private Product fetchProduct(String id) {
+        Product product = circuitBreaker == null
+                ? hedgedRequests.call(() -> requestProduct(id))
+                : circuitBreaker.executeSupplier(() -> hedgedRequests.call(() -> requestProduct(id)));
+        if (product != null) {
+            lastKnownProducts.put(id, product);
+        }
+        return product;
+    }
+
+    private Product lastKnownProduct(String id) {
+        Product lastKnown = lastKnownProducts.getIfPresent(id);
+        if (lastKnown == null) {
+            throw new UpstreamUnavailableException("Product service unavailable, productId: " + id + " can't be resolved");
+        }
+        return lastKnown;
+    }
+
+    private CompletableFuture<Product> fetchProductAsync(String id) {
+        CompletableFuture<Product> product = circuitBreaker == null
+                ? hedgedRequests.callAsync(() -> requestProductAsync(id))
+                : circuitBreaker.executeCompletionStage(() -> hedgedRequests.callAsync(() -> requestProductAsync(id)))
+                        .toCompletableFuture();
+        return product.thenApply(fetched -> {
+            if (fetched != null) {
+                lastKnownProducts.put(id, fetched);
+            }
+            return fetched;
+        });
+    }
+
+    private Product requestProduct(String id) {
         HttpHeaders headers = createHeaders("user", "pass");
         HttpEntity<String> entity = new HttpEntity<>(headers);
         try {
-            ResponseEntity<Product> response = restTemplate.exchange(url, HttpMethod.GET, entity, Product.class, id);
+            ResponseEntity<Product> response = restTemplate.exchange(PRODUCT_PATH, HttpMethod.GET, entity, Product.class, id);
             return response.getBody();
         } catch (HttpClientErrorException.NotFound e) {
             // Handle the case where the product is not found
@@ -33,6 +155,36 @@ public class ProductServiceGateway {
         }
     }
 
+    private CompletableFuture<Product> requestProductAsync(String id) {
+        HttpRequest request = HttpRequest.newBuilder(restTemplate.getUriTemplateHandler().expand(PRODUCT_PATH, id))
+                .header(HttpHeaders.AUTHORIZATION, createHeaders("user", "pass").getFirst(HttpHeaders.AUTHORIZATION))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .timeout(readTimeout)
+                .GET()
+                .build();
+        return asyncLimiter.submit(() -> asyncHttpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+                .thenApply(this::readProduct);
+    }
+
+    private Product readProduct(HttpResponse<byte[]> response) {
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return null;
+        }
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        if (!status.is2xxSuccessful()) {
+            throw new RestClientResponseException("Product service responded with " + status, status, "", null,
+                    response.body(), null);
+        }
+        if (response.body().length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.body(), Product.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     private HttpHeaders createHeaders(String username, String password) {
         return new HttpHeaders() {{
             String auth = username + ":" + password;
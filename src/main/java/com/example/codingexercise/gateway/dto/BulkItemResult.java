@@ -0,0 +1,13 @@
+package com.example.codingexercise.gateway.dto;
+
+// Outcome of one package of a bulk request; index is its position in the request body
+public record BulkItemResult(int index, int status, Long id, String error) {
+
+    public static BulkItemResult success(int index, Long id) {
+        return new BulkItemResult(index, 200, id, null);
+    }
+
+    public static BulkItemResult failure(int index, int status, Long id, String error) {
+        return new BulkItemResult(index, status, id, error);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.codingexercise.gateway.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+// Packages created or updated and ids of packages deleted after a point in time; the next sync passes the
+// cursor as changedSince
+public record PackageChanges<T>(List<T> packages, List<Long> deleted, Instant cursor, boolean hasMore) {
+}
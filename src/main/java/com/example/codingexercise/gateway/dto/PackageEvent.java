@@ -0,0 +1,14 @@
+package com.example.codingexercise.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Data of one change feed event: the package as written for created and updated, only its id for deleted.
+// A reset carries neither; the subscriber missed events and has to resync through delta sync.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PackageEvent(String type, Long id, ProductPackageDto productPackage) {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String RESET = "reset";
+}
@@ -0,0 +1,9 @@
+package com.example.codingexercise.gateway.dto;
+
+// Optional search criteria for listing packages; null fields don't restrict the result
+public record PackageFilter(String productId, String namePrefix, Double minPrice, Double maxPrice) {
+
+    public boolean isEmpty() {
+        return productId == null && namePrefix == null && minPrice == null && maxPrice == null;
+    }
+}
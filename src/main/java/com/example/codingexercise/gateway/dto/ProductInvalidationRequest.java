@@ -0,0 +1,6 @@
+package com.example.codingexercise.gateway.dto;
+
+import java.util.List;
+
+public record ProductInvalidationRequest(List<String> productIds) {
+}
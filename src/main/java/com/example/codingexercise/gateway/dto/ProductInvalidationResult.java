@@ -0,0 +1,7 @@
+package com.example.codingexercise.gateway.dto;
+
+import java.util.List;
+
+// The products dropped from the cache and the packages whose prices were recomputed because they contain one
+public record ProductInvalidationResult(List<String> productIds, List<Long> packageIds) {
+}
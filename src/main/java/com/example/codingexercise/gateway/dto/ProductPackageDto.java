@@ -1,10 +1,13 @@
 package com.example.codingexercise.gateway.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 
 import com.example.codingexercise.model.ProductPackage;
 
@@ -18,6 +21,12 @@ public class ProductPackageDto {
     private List<String> productIds;
     private List<Product> products;
     private double price;
+    // Only set when converted prices were requested, keyed by currency
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> prices;
+    // Returned as the ETag header rather than in the body
+    @JsonIgnore
+    private Long version;
 
     public static ProductPackage toEntity(ProductPackageDto dto) {
         ProductPackage productPackage = new ProductPackage();
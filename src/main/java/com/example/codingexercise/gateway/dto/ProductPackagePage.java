@@ -0,0 +1,6 @@
+package com.example.codingexercise.gateway.dto;
+
+import java.util.List;
+
+public record ProductPackagePage(List<ProductPackageDto> packages, Long nextCursor) {
+}
@@ -0,0 +1,21 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(CurrencyConversionEvent.NAME)
+@Label("Currency Conversion")
+@Description("Conversion of USD prices through the currency gateway, including fetching the rates when needed")
+public class CurrencyConversionEvent extends GatewayCallEvent {
+
+    public static final String NAME = "com.example.codingexercise.CurrencyConversion";
+
+    // Comma separated when several currencies are converted at once
+    @Label("Currencies")
+    public String currencies;
+
+    public CurrencyConversionEvent(String currencies) {
+        this.currencies = currencies;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+// Base of the events emitted for calls into an upstream gateway; the event duration is the call's duration
+@Category({"Product Package Service", "Gateway"})
+@StackTrace(false)
+public abstract class GatewayCallEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    public String method;
+
+    // success, not_found or error, as on the gateway.requests timer
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,28 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(HttpRequestEvent.NAME)
+@Label("HTTP Request")
+@Description("Handling of an HTTP request, from the first filter until the response is complete")
+@Category({"Product Package Service", "HTTP"})
+@StackTrace(false)
+public class HttpRequestEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.example.codingexercise.HttpRequest";
+
+    @Label("Method")
+    public String method;
+
+    // The matched handler mapping, e.g. /packages/{id}, or UNMATCHED, e.g. when the request was rejected
+    // before reaching a handler
+    @Label("Endpoint")
+    public String endpoint;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,35 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(PackageEnrichmentEvent.NAME)
+@Label("Package Enrichment")
+@Description("Resolving the products of a package and setting them and its total price on the package")
+@Category({"Product Package Service", "Packages"})
+@StackTrace(false)
+public class PackageEnrichmentEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "com.example.codingexercise.PackageEnrichment";
+
+    @Label("Package Id")
+    public long packageId;
+
+    @Label("Products")
+    public int productCount;
+
+    // Products the product service didn't know, which are left out of the package
+    @Label("Missing Products")
+    public int missingProducts;
+
+    // success or error
+    @Label("Outcome")
+    public String outcome;
+
+    public PackageEnrichmentEvent(long packageId) {
+        this.packageId = packageId;
+    }
+}
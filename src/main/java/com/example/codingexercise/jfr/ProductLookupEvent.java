@@ -0,0 +1,20 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name(ProductLookupEvent.NAME)
+@Label("Product Lookup")
+@Description("Lookup of a product through the product service gateway, including cache hits")
+public class ProductLookupEvent extends GatewayCallEvent {
+
+    public static final String NAME = "com.example.codingexercise.ProductLookup";
+
+    @Label("Product Id")
+    public String productId;
+
+    public ProductLookupEvent(String productId) {
+        this.productId = productId;
+    }
+}
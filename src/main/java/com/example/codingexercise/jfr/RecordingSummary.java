@@ -0,0 +1,167 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Summarizes a flight recording of this service into latency tables per endpoint and per upstream call:
+//   java -cp target/classes com.example.codingexercise.jfr.RecordingSummary recording.jfr
+public final class RecordingSummary {
+
+    private static final Set<String> STAGE_EVENTS = Set.of(PackageEnrichmentEvent.NAME, CurrencyConversionEvent.NAME);
+
+    private RecordingSummary() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingSummary <recording.jfr>");
+            System.exit(2);
+        }
+        List<RecordedEvent> events = new ArrayList<>();
+        try (RecordingFile recording = new RecordingFile(Path.of(args[0]))) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                if (event.getEventType().getName().startsWith("com.example.codingexercise.")) {
+                    events.add(event);
+                }
+            }
+        }
+        System.out.print(summarize(events));
+    }
+
+    static String summarize(List<RecordedEvent> events) {
+        Map<String, Latencies> endpoints = new TreeMap<>();
+        Map<String, Latencies> productLookups = new TreeMap<>();
+        Map<String, Latencies> currencyConversions = new TreeMap<>();
+        Map<String, Latencies> enrichments = new TreeMap<>();
+        // requests by thread and start, to attribute the stages that ran on the request thread to their request
+        Map<Long, TreeMap<Instant, Request>> requestsByThread = new HashMap<>();
+
+        for (RecordedEvent event : events) {
+            switch (event.getEventType().getName()) {
+                case HttpRequestEvent.NAME -> {
+                    String endpoint = event.getString("method") + " " + event.getString("endpoint");
+                    Latencies latencies = endpoints.computeIfAbsent(endpoint, key -> new Latencies());
+                    latencies.add(event.getDuration().toNanos());
+                    requestsByThread.computeIfAbsent(threadId(event), key -> new TreeMap<>())
+                            .put(event.getStartTime(), new Request(event.getEndTime(), latencies));
+                }
+                case ProductLookupEvent.NAME -> productLookups.computeIfAbsent(methodAndOutcome(event),
+                        key -> new Latencies()).add(event.getDuration().toNanos());
+                case CurrencyConversionEvent.NAME -> currencyConversions.computeIfAbsent(methodAndOutcome(event),
+                        key -> new Latencies()).add(event.getDuration().toNanos());
+                case PackageEnrichmentEvent.NAME -> enrichments.computeIfAbsent(event.getString("outcome"),
+                        key -> new Latencies()).add(event.getDuration().toNanos());
+                default -> {
+                }
+            }
+        }
+        for (RecordedEvent event : events) {
+            if (STAGE_EVENTS.contains(event.getEventType().getName())) {
+                attribute(event, requestsByThread.get(threadId(event)));
+            }
+        }
+
+        StringBuilder summary = new StringBuilder();
+        table(summary, "HTTP requests", "endpoint", endpoints, true);
+        table(summary, "Package enrichment", "outcome", enrichments, false);
+        table(summary, "Product lookups", "method outcome", productLookups, false);
+        table(summary, "Currency conversions", "method outcome", currencyConversions, false);
+        return summary.toString();
+    }
+
+    private static void attribute(RecordedEvent stage, TreeMap<Instant, Request> requests) {
+        Map.Entry<Instant, Request> request = requests == null ? null : requests.floorEntry(stage.getStartTime());
+        if (request == null || stage.getEndTime().isAfter(request.getValue().end())) {
+            return;
+        }
+        Latencies latencies = request.getValue().latencies();
+        if (PackageEnrichmentEvent.NAME.equals(stage.getEventType().getName())) {
+            latencies.enrichmentNanos += stage.getDuration().toNanos();
+        } else {
+            latencies.currencyNanos += stage.getDuration().toNanos();
+        }
+    }
+
+    private static long threadId(RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        return thread == null ? -1 : thread.getId();
+    }
+
+    private static String methodAndOutcome(RecordedEvent event) {
+        return event.getString("method") + " " + event.getString("outcome");
+    }
+
+    private static void table(StringBuilder summary, String title, String keyHeader, Map<String, Latencies> rows,
+                boolean withStages) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int keyWidth = Math.max(keyHeader.length(), rows.keySet().stream().mapToInt(String::length).max().orElse(0));
+        summary.append(title).append('\n');
+        summary.append(String.format(Locale.ROOT, "%-" + keyWidth + "s %8s %9s %9s %9s %9s", keyHeader, "count",
+                "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        if (withStages) {
+            summary.append(String.format(Locale.ROOT, " %13s %15s", "enrich ms/req", "currency ms/req"));
+        }
+        summary.append('\n');
+        rows.forEach((key, latencies) -> {
+            long[] sorted = latencies.sorted();
+            summary.append(String.format(Locale.ROOT, "%-" + keyWidth + "s %8d %9.1f %9.1f %9.1f %9.1f", key,
+                    sorted.length, millis(percentile(sorted, 50)), millis(percentile(sorted, 90)),
+                    millis(percentile(sorted, 99)), millis(sorted[sorted.length - 1])));
+            if (withStages) {
+                summary.append(String.format(Locale.ROOT, " %13.1f %15.1f",
+                        millis(latencies.enrichmentNanos) / sorted.length, millis(latencies.currencyNanos) / sorted.length));
+            }
+            summary.append('\n');
+        });
+        summary.append('\n');
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Request(Instant end, Latencies latencies) {
+    }
+
+    private static final class Latencies {
+
+        private long[] nanos = new long[16];
+        private int size;
+        private long enrichmentNanos;
+        private long currencyNanos;
+
+        void add(long duration) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = duration;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.codingexercise.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Marks a deleted package, so delta sync can tell mirrors to drop it; kept for packages.changes.tombstone-retention
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(name = "idx_package_tombstone_deleted_at", columnList = "deleted_at"))
+public class PackageTombstone {
+
+    @Id
+    private Long packageId;
+
+    private Instant deletedAt;
+
+    public static PackageTombstone of(Long packageId, Instant deletedAt) {
+        PackageTombstone tombstone = new PackageTombstone();
+        tombstone.setPackageId(packageId);
+        tombstone.setDeletedAt(deletedAt);
+        return tombstone;
+    }
+}
@@ -3,32 +3,74 @@ package com.example.codingexercise.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.time.Instant;
 import java.util.List;
 
+import com.example.codingexercise.config.EntityCacheConfig;
 import com.example.codingexercise.gateway.dto.ProductPackageDto;
 
 @Getter
 @Setter
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_package_name", columnList = "name"),
+        @Index(name = "idx_product_package_price", columnList = "price"),
+        @Index(name = "idx_product_package_updated_at", columnList = "updated_at")
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.PACKAGE_REGION)
 public class ProductPackage {
 
+    // Pooled sequence allocation hands out ids without a round trip per insert, which lets
+    // Hibernate batch the inserts (IDENTITY would force one insert statement per row)
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_package_seq")
+    @SequenceGenerator(name = "product_package_seq", sequenceName = "product_package_seq", allocationSize = 50)
     private Long id;
 
     private String name;
     private String description;
 
+    // Total USD price of the products as of the last write or product invalidation, so price
+    // ranges can be filtered in the database without looking products up
+    private Double price;
+
+    // Incremented on every change, including price updates from product invalidations; it backs the ETags of
+    // package reads and makes an update of a package that changed since it was read fail instead of overwriting
+    @Version
+    private Long version;
+
+    // Set on every write; delta sync (GET /packages?changedSince=) reads the packages changed since a point in time
+    private Instant updatedAt;
+
+    // Single-package reads join-fetch this collection (see PackageRepository); list queries
+    // load it for a whole page of packages in one batched select instead of one per package.
+    // A page is at most packages.max-page-size (500) rows plus the one telling whether another follows.
     @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "product_package_product_ids",
+            joinColumns = @JoinColumn(name = "product_package_id"),
+            indexes = @Index(name = "idx_product_package_product_ids_product_id", columnList = "product_id"))
+    @Column(name = "product_id")
+    @BatchSize(size = 501)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.PACKAGE_PRODUCT_IDS_REGION)
     private List<String> productIds;
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public static ProductPackageDto toDto(ProductPackage productPackage) {
         ProductPackageDto dto = new ProductPackageDto();
         dto.setId(productPackage.getId());
         dto.setName(productPackage.getName());
         dto.setDescription(productPackage.getDescription());
         dto.setProductIds(productPackage.getProductIds());
+        dto.setVersion(productPackage.getVersion());
         return dto;
     }
 }
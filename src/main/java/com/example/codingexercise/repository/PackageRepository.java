@@ -1,9 +1,55 @@
 package com.example.codingexercise.repository;
 
 import com.example.codingexercise.model.ProductPackage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface PackageRepository extends JpaRepository<ProductPackage, Long> {
-}
\ No newline at end of file
+public interface PackageRepository extends JpaRepository<ProductPackage, Long>, JpaSpecificationExecutor<ProductPackage> {
+
+    @Override
+    @EntityGraph(attributePaths = "productIds")
+    Optional<ProductPackage> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "productIds")
+    List<ProductPackage> findAll();
+
+    List<ProductPackage> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<ProductPackage> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<ProductPackage> findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqualOrderByUpdatedAtAscIdAsc(
+            Instant since, Instant upTo, Pageable pageable);
+
+    List<ProductPackage> findByUpdatedAt(Instant updatedAt);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update ProductPackage p set p.price = :price, p.version = p.version + 1, p.updatedAt = :updatedAt"
+            + " where p.id = :id")
+    int updatePrice(Long id, Double price, Instant updatedAt);
+
+    // Walks all packages in id order one keyset batch at a time, so neither memory nor a
+    // database connection is held for longer than a single batch
+    default Stream<ProductPackage> streamAllOrderById(int batchSize) {
+        Pageable batch = PageRequest.of(0, batchSize);
+        return Stream.iterate(findAllByOrderByIdAsc(batch),
+                        productPackages -> !productPackages.isEmpty(),
+                        productPackages -> productPackages.size() < batchSize ? List.of()
+                                : findByIdGreaterThanOrderByIdAsc(productPackages.get(productPackages.size() - 1).getId(), batch))
+                .flatMap(List::stream);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.codingexercise.repository;
+
+import com.example.codingexercise.gateway.dto.PackageFilter;
+import com.example.codingexercise.model.ProductPackage;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Only the criteria that are set end up in the where clause, so each filter can use its own index
+// instead of a catch-all "(:param is null or ...)" query the database can't plan well
+public final class PackageSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private PackageSpecifications() {
+    }
+
+    public static Specification<ProductPackage> matching(PackageFilter filter, Long after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (after != null) {
+                predicates.add(cb.greaterThan(root.get("id"), after));
+            }
+            if (filter.productId() != null) {
+                // an exists subquery rather than a join keeps one row per package for the page limit
+                Subquery<Long> containing = query.subquery(Long.class);
+                Root<ProductPackage> containingPackage = containing.from(ProductPackage.class);
+                containing.select(containingPackage.get("id")).where(
+                        cb.equal(containingPackage.get("id"), root.get("id")),
+                        cb.equal(containingPackage.join("productIds"), filter.productId()));
+                predicates.add(cb.exists(containing));
+            }
+            if (filter.namePrefix() != null) {
+                predicates.add(cb.like(root.get("name"), escapeLike(filter.namePrefix()) + "%", LIKE_ESCAPE));
+            }
+            if (filter.minPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.codingexercise.repository;
+
+import com.example.codingexercise.model.PackageTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PackageTombstoneRepository extends JpaRepository<PackageTombstone, Long> {
+
+    List<PackageTombstone> findByDeletedAtGreaterThanAndDeletedAtLessThanEqualOrderByDeletedAtAscPackageIdAsc(
+            Instant since, Instant upTo, Pageable pageable);
+
+    List<PackageTombstone> findByDeletedAt(Instant deletedAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PackageTombstone t where t.deletedAt < :cutoff")
+    int deleteDeletedBefore(Instant cutoff);
+}
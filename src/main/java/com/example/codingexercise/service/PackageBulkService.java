@@ -0,0 +1,180 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.gateway.dto.BulkItemResult;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Creates and updates many packages per request: the distinct productIds of the whole batch are
+// looked up once and the rows are written in one transaction, so Hibernate can send them as JDBC batches
+@Service
+public class PackageBulkService {
+
+    private final PackageRepository packageRepository;
+    private final ProductResolver productResolver;
+    private final PackageReadModel packageReadModel;
+    private final ProductPackageIndex productPackageIndex;
+    private final PackageProperties packageProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final PackageChangeFeed packageChangeFeed;
+
+    public PackageBulkService(PackageRepository packageRepository, ProductResolver productResolver,
+                PackageReadModel packageReadModel, ProductPackageIndex productPackageIndex,
+                PackageProperties packageProperties, PlatformTransactionManager transactionManager,
+                PackageChangeFeed packageChangeFeed) {
+        this.packageRepository = packageRepository;
+        this.productResolver = productResolver;
+        this.packageReadModel = packageReadModel;
+        this.productPackageIndex = productPackageIndex;
+        this.packageProperties = packageProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.packageChangeFeed = packageChangeFeed;
+    }
+
+    public List<BulkItemResult> createAll(List<ProductPackageDto> productPackageDtos) {
+        checkBatchSize(productPackageDtos);
+        Map<String, Product> products = resolveDistinctProducts(productPackageDtos);
+
+        BulkItemResult[] results = new BulkItemResult[productPackageDtos.size()];
+        List<Integer> accepted = new ArrayList<>();
+        List<ProductPackage> productPackages = new ArrayList<>();
+        for (int i = 0; i < productPackageDtos.size(); i++) {
+            ProductPackageDto productPackageDto = productPackageDtos.get(i);
+            String error = validate(productPackageDto, products);
+            if (error != null) {
+                results[i] = BulkItemResult.failure(i, HttpStatus.BAD_REQUEST.value(), null, error);
+            } else {
+                ProductPackage productPackage = ProductPackageDto.toEntity(productPackageDto);
+                productPackage.setId(null);
+                productPackage.setPrice(PackageService.totalPrice(productsOf(productPackage, products)));
+                productPackages.add(productPackage);
+                accepted.add(i);
+            }
+        }
+
+        List<ProductPackage> saved = packageRepository.saveAll(productPackages);
+        for (int i = 0; i < saved.size(); i++) {
+            ProductPackageDto savedDto = toEnrichedDto(saved.get(i), products);
+            productPackageIndex.add(savedDto.getId(), savedDto.getProductIds());
+            packageReadModel.put(savedDto);
+            packageChangeFeed.created(savedDto);
+            results[accepted.get(i)] = BulkItemResult.success(accepted.get(i), savedDto.getId());
+        }
+        return Arrays.asList(results);
+    }
+
+    public List<BulkItemResult> updateAll(List<ProductPackageDto> productPackageDtos) {
+        checkBatchSize(productPackageDtos);
+        Map<String, Product> products = resolveDistinctProducts(productPackageDtos);
+
+        BulkItemResult[] results = new BulkItemResult[productPackageDtos.size()];
+        Map<Long, Integer> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < productPackageDtos.size(); i++) {
+            ProductPackageDto productPackageDto = productPackageDtos.get(i);
+            Long id = productPackageDto == null ? null : productPackageDto.getId();
+            String error = id == null ? "Package id is required for a bulk update"
+                    : accepted.containsKey(id) ? "Duplicate packageId: " + id + " in bulk request"
+                    : validate(productPackageDto, products);
+            if (error != null) {
+                results[i] = BulkItemResult.failure(i, HttpStatus.BAD_REQUEST.value(), id, error);
+            } else {
+                accepted.put(id, i);
+            }
+        }
+
+        Map<Long, List<String>> previousProductIds = new HashMap<>();
+        // loading and modifying inside one transaction lets dirty checking flush the changes as batched updates
+        List<ProductPackage> updatedPackages = transactionTemplate.execute(status -> {
+            Map<Long, ProductPackage> existing = new HashMap<>();
+            packageRepository.findAllById(accepted.keySet()).forEach(productPackage ->
+                    existing.put(productPackage.getId(), productPackage));
+            List<ProductPackage> modified = new ArrayList<>();
+            accepted.forEach((id, index) -> {
+                ProductPackage productPackage = existing.get(id);
+                if (productPackage == null) {
+                    results[index] = BulkItemResult.failure(index, HttpStatus.NOT_FOUND.value(), id,
+                            "Provided packageId: " + id + " not found");
+                    return;
+                }
+                ProductPackageDto productPackageDto = productPackageDtos.get(index);
+                previousProductIds.put(id, List.copyOf(productPackage.getProductIds()));
+                productPackage.setName(productPackageDto.getName());
+                productPackage.setDescription(productPackageDto.getDescription());
+                productPackage.setProductIds(new ArrayList<>(productPackageDto.getProductIds()));
+                productPackage.setPrice(PackageService.totalPrice(productsOf(productPackage, products)));
+                modified.add(productPackage);
+            });
+            return modified;
+        });
+
+        // mapped after the commit, once the flush has given the packages their new versions
+        for (ProductPackage updatedPackage : updatedPackages) {
+            ProductPackageDto updatedDto = toEnrichedDto(updatedPackage, products);
+            productPackageIndex.replace(updatedDto.getId(), previousProductIds.get(updatedDto.getId()),
+                    updatedDto.getProductIds());
+            packageReadModel.put(updatedDto);
+            packageChangeFeed.updated(updatedDto);
+            int index = accepted.get(updatedDto.getId());
+            results[index] = BulkItemResult.success(index, updatedDto.getId());
+        }
+        return Arrays.asList(results);
+    }
+
+    private void checkBatchSize(List<ProductPackageDto> productPackageDtos) {
+        if (CollectionUtils.isEmpty(productPackageDtos)) {
+            throw new IllegalArgumentException("There should be at least one package in a bulk request");
+        }
+        if (productPackageDtos.size() > packageProperties.getMaxBulkSize()) {
+            throw new IllegalArgumentException("A bulk request can contain at most " + packageProperties.getMaxBulkSize()
+                    + " packages");
+        }
+    }
+
+    // Looks every distinct productId of the batch up once
+    private Map<String, Product> resolveDistinctProducts(List<ProductPackageDto> productPackageDtos) {
+        return productResolver.resolveAll(productPackageDtos.stream()
+                .filter(Objects::nonNull)
+                .map(ProductPackageDto::getProductIds)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    private String validate(ProductPackageDto productPackageDto, Map<String, Product> products) {
+        if (productPackageDto == null || CollectionUtils.isEmpty(productPackageDto.getProductIds())) {
+            return "There should be at least one product for a package";
+        }
+        for (String productId : productPackageDto.getProductIds()) {
+            if (!products.containsKey(productId)) {
+                return "Provided productId: " + productId + " not found";
+            }
+        }
+        return null;
+    }
+
+    private ProductPackageDto toEnrichedDto(ProductPackage productPackage, Map<String, Product> products) {
+        ProductPackageDto productPackageDto = ProductPackage.toDto(productPackage);
+        PackageService.setProducts(productPackageDto, productsOf(productPackage, products));
+        return productPackageDto;
+    }
+
+    private static List<Product> productsOf(ProductPackage productPackage, Map<String, Product> products) {
+        return productPackage.getProductIds().stream().map(products::get).toList();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.exception.TooManySubscribersException;
+import com.example.codingexercise.gateway.dto.PackageEvent;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Pushes package writes to Server-Sent Events subscribers. The latest events are kept to replay to subscribers
+// resuming with a Last-Event-ID; one that missed more than that gets a reset event and resyncs through delta sync.
+// Event ids start with the time this instance started, so an id handed out before a restart is never resumed from.
+// Every subscriber is written to from its own queue on its own thread, so a slow one never holds up writes or
+// other subscribers; once its queue is full it is disconnected and can resume from the last event it received.
+// As each subscriber may hold a thread, at most packages.stream.max-subscribers are connected at once.
+@Component
+public class PackageChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(PackageChangeFeed.class);
+
+    private final ObjectMapper objectMapper;
+    private final Executor packageStreamExecutor;
+    private final PackageProperties.Stream properties;
+    private final PackageEventBuffer buffer;
+    // guards the buffer and the subscriptions to it; a lock so publishing from virtual threads doesn't pin them
+    private final ReentrantLock bufferLock = new ReentrantLock();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final Counter slowSubscribers;
+
+    public PackageChangeFeed(ObjectMapper objectMapper, @Qualifier("packageStreamExecutor") Executor packageStreamExecutor,
+                PackageProperties packageProperties, TaskScheduler taskScheduler, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.packageStreamExecutor = packageStreamExecutor;
+        this.properties = packageProperties.getStream();
+        this.buffer = new PackageEventBuffer(properties.getBufferSize());
+        Gauge.builder("packages.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+        this.slowSubscribers = Counter.builder("packages.stream.disconnected")
+                .tag("reason", "slow")
+                .register(meterRegistry);
+        Duration heartbeatInterval = properties.getHeartbeatInterval();
+        taskScheduler.scheduleWithFixedDelay(this::heartbeat, Instant.now().plus(heartbeatInterval), heartbeatInterval);
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Subscriber subscriber;
+        // under the buffer lock no event can be appended between the replay and the subscription
+        bufferLock.lock();
+        try {
+            if (subscribers.size() >= properties.getMaxSubscribers()) {
+                throw new TooManySubscribersException("Change feed already has " + subscribers.size()
+                        + " subscribers, retry later");
+            }
+            List<PackageEventBuffer.Entry> missed = lastEventId == null ? List.of() : missedSince(lastEventId);
+            subscriber = new Subscriber(emitter, missed == null ? 2 : missed.size() + 1);
+            // the response is only sent once something is written, so clients see the subscription right away
+            subscriber.offer(SseEmitter.event().comment("subscribed"));
+            if (missed == null) {
+                subscriber.offer(SseEmitter.event().id(eventId(buffer.lastSequence())).name(PackageEvent.RESET)
+                        .data(write(new PackageEvent(PackageEvent.RESET, null, null))));
+            } else {
+                missed.forEach(entry -> subscriber.offer(event(entry)));
+            }
+            if (!subscriber.disconnected) {
+                subscribers.add(subscriber);
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        return emitter;
+    }
+
+    public void created(ProductPackageDto productPackage) {
+        publish(new PackageEvent(PackageEvent.CREATED, productPackage.getId(), productPackage));
+    }
+
+    public void updated(ProductPackageDto productPackage) {
+        publish(new PackageEvent(PackageEvent.UPDATED, productPackage.getId(), productPackage));
+    }
+
+    public void deleted(Long id) {
+        publish(new PackageEvent(PackageEvent.DELETED, id, null));
+    }
+
+    // Inside a transaction the event waits for the commit, so subscribers never see a write that is rolled back
+    private void publish(PackageEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(event);
+            }
+        });
+    }
+
+    private void append(PackageEvent event) {
+        String data = write(event);
+        bufferLock.lock();
+        try {
+            PackageEventBuffer.Entry entry = buffer.append(event.type(), data);
+            subscribers.forEach(subscriber -> subscriber.offer(event(entry)));
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    // Keeps idle connections from being closed by proxies, and finds the subscribers that are gone
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat")));
+    }
+
+    private List<PackageEventBuffer.Entry> missedSince(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return buffer.after(Long.parseLong(lastEventId.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private SseEmitter.SseEventBuilder event(PackageEventBuffer.Entry entry) {
+        return SseEmitter.event().id(eventId(entry.sequence())).name(entry.type()).data(entry.data());
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private String write(PackageEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean disconnected;
+
+        // what is sent on subscribing doesn't count against the queue size
+        Subscriber(SseEmitter emitter, int replayed) {
+            this.emitter = emitter;
+            this.capacity = properties.getSubscriberBufferSize() + replayed;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (disconnected) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > capacity) {
+                disconnected = true;
+                subscribers.remove(this);
+                slowSubscribers.increment();
+            } else {
+                pending.add(event);
+            }
+            drain();
+        }
+
+        // At most one drain per subscriber runs at a time; the emitter is only ever touched from it, as a write
+        // blocked on a slow client holds the emitter's lock
+        private void drain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                packageStreamExecutor.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // a disconnected subscriber may still hold its thread; this one resumes once it reconnects
+                log.debug("No thread to write to change feed subscriber", e);
+                disconnected = true;
+                subscribers.remove(this);
+                emitter.complete();
+            }
+        }
+
+        private void send() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!disconnected && (event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // the client is gone; the container completes the request
+                log.debug("Writing to change feed subscriber failed", e);
+                disconnected = true;
+                subscribers.remove(this);
+                return;
+            }
+            if (disconnected) {
+                emitter.complete();
+                return;
+            }
+            draining.set(false);
+            if (!pending.isEmpty() || disconnected) {
+                drain();
+            }
+        }
+    }
+}
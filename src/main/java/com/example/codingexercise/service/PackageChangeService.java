@@ -0,0 +1,100 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.exception.ChangesExpiredException;
+import com.example.codingexercise.gateway.dto.PackageChanges;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.PackageTombstone;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import com.example.codingexercise.repository.PackageTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Delta sync for mirrors of the catalog: reads only the packages written and deleted since the last sync, so
+// a sync costs as much as the churn rather than the catalog size
+@Service
+public class PackageChangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PackageChangeService.class);
+
+    private final PackageRepository packageRepository;
+    private final PackageTombstoneRepository packageTombstoneRepository;
+    private final PackageService packageService;
+    private final PackageProperties.Changes properties;
+
+    public PackageChangeService(PackageRepository packageRepository,
+                PackageTombstoneRepository packageTombstoneRepository, PackageService packageService,
+                PackageProperties packageProperties) {
+        this.packageRepository = packageRepository;
+        this.packageTombstoneRepository = packageTombstoneRepository;
+        this.packageService = packageService;
+        this.properties = packageProperties.getChanges();
+    }
+
+    // Changes strictly after since, oldest first. A page ends at its limit-th change but also holds every other
+    // change made at that same instant, so the cursor never splits changes that share a timestamp.
+    public PackageChanges<ProductPackageDto> getChanges(Instant since, int limit, boolean expandProducts) {
+        Instant now = Instant.now();
+        if (since.isBefore(now.minus(properties.getTombstoneRetention()))) {
+            throw new ChangesExpiredException("changedSince: " + since + " is older than the "
+                    + properties.getTombstoneRetention() + " deletions are kept for, reload all packages instead");
+        }
+        Instant upTo = now.minus(properties.getSettleTime());
+        if (!since.isBefore(upTo)) {
+            return new PackageChanges<>(List.of(), List.of(), since, false);
+        }
+
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<ProductPackage> updated = packageRepository
+                .findByUpdatedAtGreaterThanAndUpdatedAtLessThanEqualOrderByUpdatedAtAscIdAsc(since, upTo, pageable);
+        List<PackageTombstone> deleted = packageTombstoneRepository
+                .findByDeletedAtGreaterThanAndDeletedAtLessThanEqualOrderByDeletedAtAscPackageIdAsc(since, upTo, pageable);
+        if (updated.size() + deleted.size() <= limit) {
+            return changes(updated, deleted, upTo, false, expandProducts);
+        }
+
+        Instant boundary = Stream.concat(updated.stream().map(ProductPackage::getUpdatedAt),
+                        deleted.stream().map(PackageTombstone::getDeletedAt))
+                .sorted()
+                .skip(limit - 1)
+                .findFirst()
+                .orElseThrow();
+        List<ProductPackage> pageUpdated = new ArrayList<>(updated.stream()
+                .filter(productPackage -> productPackage.getUpdatedAt().isBefore(boundary))
+                .toList());
+        pageUpdated.addAll(packageRepository.findByUpdatedAt(boundary));
+        List<PackageTombstone> pageDeleted = new ArrayList<>(deleted.stream()
+                .filter(tombstone -> tombstone.getDeletedAt().isBefore(boundary))
+                .toList());
+        pageDeleted.addAll(packageTombstoneRepository.findByDeletedAt(boundary));
+        return changes(pageUpdated, pageDeleted, boundary, true, expandProducts);
+    }
+
+    @Scheduled(initialDelay = 1, fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void purgeTombstones() {
+        int purged = packageTombstoneRepository.deleteDeletedBefore(Instant.now().minus(properties.getTombstoneRetention()));
+        if (purged > 0) {
+            log.info("Purged {} package tombstones older than {}", purged, properties.getTombstoneRetention());
+        }
+    }
+
+    private PackageChanges<ProductPackageDto> changes(List<ProductPackage> updated, List<PackageTombstone> deleted,
+                Instant cursor, boolean hasMore, boolean expandProducts) {
+        List<ProductPackageDto> packages = packageService
+                .toProductPackagePage(new PackagePage(updated, null), expandProducts)
+                .packages();
+        return new PackageChanges<>(packages, deleted.stream().map(PackageTombstone::getPackageId).toList(), cursor,
+                hasMore);
+    }
+}
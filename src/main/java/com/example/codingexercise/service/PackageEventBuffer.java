@@ -0,0 +1,46 @@
+package com.example.codingexercise.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-size ring of the latest change feed events, numbered from 1, so a subscriber reconnecting with the
+// number of the last event it saw can be sent the ones it missed. Not thread-safe; the feed locks around it.
+final class PackageEventBuffer {
+
+    private final Entry[] entries;
+    private long lastSequence;
+
+    PackageEventBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid buffer size: " + capacity);
+        }
+        this.entries = new Entry[capacity];
+    }
+
+    Entry append(String type, String data) {
+        Entry entry = new Entry(++lastSequence, type, data);
+        entries[(int) (entry.sequence() % entries.length)] = entry;
+        return entry;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    // The events after the given one, or null when some of them have already been overwritten or the
+    // sequence was never handed out
+    List<Entry> after(long sequence) {
+        long oldest = Math.max(1, lastSequence - entries.length + 1);
+        if (sequence < oldest - 1 || sequence > lastSequence) {
+            return null;
+        }
+        List<Entry> missed = new ArrayList<>((int) (lastSequence - sequence));
+        for (long next = sequence + 1; next <= lastSequence; next++) {
+            missed.add(entries[(int) (next % entries.length)]);
+        }
+        return missed;
+    }
+
+    record Entry(long sequence, String type, String data) {
+    }
+}
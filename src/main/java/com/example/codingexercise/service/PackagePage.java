@@ -0,0 +1,36 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.model.ProductPackage;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// A page of packages as stored, before their products are resolved. Its version changes whenever a package
+// on the page changes or the page gains or loses a package, so a page that didn't change needs no products.
+public final class PackagePage {
+
+    private final List<ProductPackage> productPackages;
+    private final Long nextCursor;
+
+    PackagePage(List<ProductPackage> productPackages, Long nextCursor) {
+        this.productPackages = productPackages;
+        this.nextCursor = nextCursor;
+    }
+
+    List<ProductPackage> productPackages() {
+        return productPackages;
+    }
+
+    public Long nextCursor() {
+        return nextCursor;
+    }
+
+    public String version() {
+        StringBuilder versions = new StringBuilder();
+        productPackages.forEach(productPackage ->
+                versions.append(productPackage.getId()).append(':').append(productPackage.getVersion()).append(';'));
+        versions.append(nextCursor);
+        return DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+// Denormalized view of every package with its resolved products and total USD price, so reads
+// are served from memory instead of resolving products remotely on each request
+@Component
+public class PackageReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(PackageReadModel.class);
+
+    private final ProductResolver productResolver;
+    private final Executor refreshExecutor;
+    private final PackageProperties.ReadModel properties;
+    private final Clock clock;
+    private final ConcurrentMap<Long, PackageView> views = new ConcurrentHashMap<>();
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public PackageReadModel(ProductResolver productResolver, @Qualifier("applicationTaskExecutor") Executor refreshExecutor,
+                PackageProperties packageProperties) {
+        this(productResolver, refreshExecutor, packageProperties, Clock.systemUTC());
+    }
+
+    PackageReadModel(ProductResolver productResolver, Executor refreshExecutor, PackageProperties packageProperties,
+                Clock clock) {
+        this.productResolver = productResolver;
+        this.refreshExecutor = refreshExecutor;
+        this.properties = packageProperties.getReadModel();
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    // Expects a dto whose products and price have already been resolved. A read that started before an update
+    // may only get here after it, so a snapshot never replaces one of a newer version of the package.
+    public void put(ProductPackageDto productPackageDto) {
+        if (isEnabled()) {
+            views.merge(productPackageDto.getId(), PackageView.of(productPackageDto, clock.instant()),
+                    PackageReadModel::newer);
+        }
+    }
+
+    // Returns a copy of the snapshot, or null when the package has no snapshot yet
+    public ProductPackageDto get(Long id) {
+        if (!isEnabled()) {
+            return null;
+        }
+        PackageView view = views.get(id);
+        if (view == null || view.deleted()) {
+            return null;
+        }
+        if (Duration.between(view.computedAt(), clock.instant()).compareTo(properties.getFreshness()) > 0) {
+            refreshInBackground(view);
+        }
+        return view.toDto();
+    }
+
+    // The snapshot is replaced by a tombstone, so a read that loaded the package before it was deleted can't put
+    // it back once its products are resolved; package ids are never reused. Inside a transaction this waits for
+    // the commit, so a delete that is rolled back keeps the snapshot.
+    public void remove(Long id) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            views.put(id, PackageView.tombstone(id, clock.instant()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                views.put(id, PackageView.tombstone(id, clock.instant()));
+            }
+        });
+    }
+
+    private void recompute(PackageView stale) {
+        ProductPackageDto refreshed = stale.toDto();
+        PackageService.setProducts(refreshed, productResolver.resolve(refreshed.getProductIds()));
+        PackageView fresh = PackageView.of(refreshed, clock.instant());
+        // an update or delete that landed while refreshing wins over the refreshed snapshot
+        views.computeIfPresent(stale.id(), (id, current) -> newer(current, fresh));
+    }
+
+    private static PackageView newer(PackageView current, PackageView candidate) {
+        if (current.deleted()) {
+            return current;
+        }
+        if (current.version() != null && candidate.version() != null && candidate.version() < current.version()) {
+            return current;
+        }
+        return candidate;
+    }
+
+    private void refreshInBackground(PackageView stale) {
+        if (!refreshing.add(stale.id())) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    recompute(stale);
+                } catch (RuntimeException e) {
+                    log.warn("Refreshing read model of package {} failed, serving snapshot from {}", stale.id(),
+                            stale.computedAt(), e);
+                } finally {
+                    refreshing.remove(stale.id());
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(stale.id());
+            throw e;
+        }
+    }
+
+    private record PackageView(Long id, Long version, String name, String description, List<String> productIds,
+                               List<Product> products, double price, Instant computedAt, boolean deleted) {
+
+        static PackageView of(ProductPackageDto dto, Instant computedAt) {
+            return new PackageView(dto.getId(), dto.getVersion(), dto.getName(), dto.getDescription(),
+                    List.copyOf(dto.getProductIds()), List.copyOf(dto.getProducts()), dto.getPrice(), computedAt,
+                    false);
+        }
+
+        static PackageView tombstone(Long id, Instant deletedAt) {
+            return new PackageView(id, null, null, null, List.of(), List.of(), 0, deletedAt, true);
+        }
+
+        ProductPackageDto toDto() {
+            ProductPackageDto dto = new ProductPackageDto();
+            dto.setId(id);
+            dto.setVersion(version);
+            dto.setName(name);
+            dto.setDescription(description);
+            dto.setProductIds(new ArrayList<>(productIds));
+            dto.setProducts(new ArrayList<>(products));
+            dto.setPrice(price);
+            return dto;
+        }
+    }
+}
@@ -1,30 +1,61 @@
 package com.example.codingexercise.service;
 
+import com.example.codingexercise.exception.PreconditionFailedException;
 import com.example.codingexercise.exception.RecordNotFoundException;
 import com.example.codingexercise.gateway.CurrencyServiceGateway;
-import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.PackageFilter;
 import com.example.codingexercise.gateway.dto.Product;
 import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.gateway.dto.ProductPackagePage;
+import com.example.codingexercise.jfr.PackageEnrichmentEvent;
+import com.example.codingexercise.model.PackageTombstone;
 import com.example.codingexercise.model.ProductPackage;
 import com.example.codingexercise.repository.PackageRepository;
+import com.example.codingexercise.repository.PackageTombstoneRepository;
+import com.example.codingexercise.repository.PackageSpecifications;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class PackageService {
 
+    private static final int STREAM_BATCH_SIZE = 100;
+
     private final PackageRepository packageRepository;
-    private final ProductServiceGateway productServiceGateway;
+    private final ProductResolver productResolver;
     private final CurrencyServiceGateway currencyServiceGateway;
+    private final PackageReadModel packageReadModel;
+    private final ProductPackageIndex productPackageIndex;
+    private final PackageTombstoneRepository packageTombstoneRepository;
+    private final PackageChangeFeed packageChangeFeed;
 
-    public PackageService(PackageRepository packageRepository, ProductServiceGateway productServiceGateway,
-                CurrencyServiceGateway currencyServiceGateway) {
+    public PackageService(PackageRepository packageRepository, ProductResolver productResolver,
+                CurrencyServiceGateway currencyServiceGateway, PackageReadModel packageReadModel,
+                ProductPackageIndex productPackageIndex, PackageTombstoneRepository packageTombstoneRepository,
+                PackageChangeFeed packageChangeFeed) {
         this.packageRepository = packageRepository;
-        this.productServiceGateway = productServiceGateway;
+        this.productResolver = productResolver;
         this.currencyServiceGateway = currencyServiceGateway;
+        this.packageReadModel = packageReadModel;
+        this.productPackageIndex = productPackageIndex;
+        this.packageTombstoneRepository = packageTombstoneRepository;
+        this.packageChangeFeed = packageChangeFeed;
     }
 
     public ProductPackageDto create(ProductPackageDto productPackageDto) {
@@ -32,15 +63,16 @@ public class PackageService {
             throw new IllegalArgumentException("There should be at least one product for a package");
         }
 
-        productPackageDto.getProductIds().forEach(productId -> {
-            if (productServiceGateway.getProduct(productId) == null) {
-                throw new IllegalArgumentException("Provided productId: "+ productId + " not found");
-            }
-        });
+        List<Product> products = resolveExistingProducts(productPackageDto.getProductIds());
 
-        ProductPackage productPackage = packageRepository.save(ProductPackageDto.toEntity(productPackageDto));
+        ProductPackage productPackage = ProductPackageDto.toEntity(productPackageDto);
+        productPackage.setPrice(totalPrice(products));
+        productPackage = packageRepository.save(productPackage);
+        productPackageIndex.add(productPackage.getId(), productPackage.getProductIds());
         ProductPackageDto productPackageDtoRet = ProductPackage.toDto(productPackage);
-        setProducts(productPackageDtoRet);
+        setProducts(productPackageDtoRet, products);
+        packageReadModel.put(productPackageDtoRet);
+        packageChangeFeed.created(productPackageDtoRet);
         return productPackageDtoRet;
     }
 
@@ -51,60 +83,215 @@ public class PackageService {
     }
 
     public ProductPackageDto getProductPackage(Long id) {
-        ProductPackage productPackage = get(id);
-        if (productPackage == null) {
-            throw new RecordNotFoundException("Provided packageId: "+ id + " not found");
+        return withProducts(findProductPackage(id));
+    }
+
+    // The package's read-model snapshot, or else the package as stored without its products. Either way the
+    // version is that of the content, so a read can take its ETag from it before resolving any products.
+    public ProductPackageDto findProductPackage(Long id) {
+        ProductPackageDto snapshot = packageReadModel.get(id);
+        return snapshot != null ? snapshot : ProductPackage.toDto(get(id));
+    }
+
+    // Adds the price in each currency to every package, converting all of them with a single rate lookup
+    public void addConvertedPrices(Collection<ProductPackageDto> productPackages, Collection<String> currencies) {
+        Map<String, Double> usdRates = currencyServiceGateway.usdRates(new LinkedHashSet<>(currencies));
+        productPackages.forEach(productPackage -> setPrices(productPackage, usdRates));
+    }
+
+    public CompletableFuture<ProductPackageDto> addConvertedPricesAsync(ProductPackageDto productPackage,
+                Collection<String> currencies) {
+        return currencyServiceGateway.usdRatesAsync(new LinkedHashSet<>(currencies)).thenApply(usdRates -> {
+            setPrices(productPackage, usdRates);
+            return productPackage;
+        });
+    }
+
+    private static void setPrices(ProductPackageDto productPackage, Map<String, Double> usdRates) {
+        Map<String, Double> prices = new LinkedHashMap<>();
+        usdRates.forEach((currency, rate) -> prices.put(currency, productPackage.getPrice() * rate));
+        productPackage.setPrices(prices);
+    }
+
+    public CompletableFuture<ProductPackageDto> getProductPackageWithCurrencyAsync(Long id, String currency) {
+        return getProductPackageAsync(id).thenCompose(productPackage ->
+                currencyServiceGateway.convertUsdToAsync(productPackage.getPrice(), currency).thenApply(price -> {
+                    productPackage.setPrice(price);
+                    return productPackage;
+                }));
+    }
+
+    // The package row is still read on the calling thread; only the product lookups complete asynchronously
+    public CompletableFuture<ProductPackageDto> getProductPackageAsync(Long id) {
+        return withProductsAsync(findProductPackage(id));
+    }
+
+    // Resolves the products of a package from findProductPackage, unless it is a snapshot that already has them
+    public ProductPackageDto withProducts(ProductPackageDto productPackageDto) {
+        if (productPackageDto.getProducts() != null) {
+            return productPackageDto;
         }
-        ProductPackageDto productPackageDto = ProductPackage.toDto(get(id));
-        setProducts(productPackageDto);
+        PackageEnrichmentEvent event = new PackageEnrichmentEvent(productPackageDto.getId());
+        event.begin();
+        List<Product> products = null;
+        try {
+            products = productResolver.resolve(productPackageDto.getProductIds());
+            setProducts(productPackageDto, products);
+        } finally {
+            commit(event, productPackageDto.getProductIds(), products);
+        }
+        packageReadModel.put(productPackageDto);
         return productPackageDto;
     }
 
+    public CompletableFuture<ProductPackageDto> withProductsAsync(ProductPackageDto productPackageDto) {
+        if (productPackageDto.getProducts() != null) {
+            return CompletableFuture.completedFuture(productPackageDto);
+        }
+        PackageEnrichmentEvent event = new PackageEnrichmentEvent(productPackageDto.getId());
+        event.begin();
+        return productResolver.resolveAsync(productPackageDto.getProductIds()).whenComplete((products, e) ->
+                commit(event, productPackageDto.getProductIds(), e == null ? products : null)).thenApply(products -> {
+            setProducts(productPackageDto, products);
+            packageReadModel.put(productPackageDto);
+            return productPackageDto;
+        });
+    }
+
     public List<ProductPackageDto> getAllProductPackages() {
         List<ProductPackage> productPackages = packageRepository.findAll();
         List<ProductPackageDto> productPackageDtos = new ArrayList<>();
         for (ProductPackage productPackage : productPackages) {
-            ProductPackageDto dto = ProductPackage.toDto(productPackage);
-            setProducts(dto);
+            ProductPackageDto dto = enrich(productPackage);
             productPackageDtos.add(dto);
         }
         return productPackageDtos;
     }
 
+    public ProductPackagePage getProductPackagePage(Long after, int limit, PackageFilter filter, boolean expandProducts) {
+        return toProductPackagePage(findProductPackagePage(after, limit, filter), expandProducts);
+    }
+
+    public PackagePage findProductPackagePage(Long after, int limit, PackageFilter filter) {
+        // one extra row tells whether another page follows without a count query
+        List<ProductPackage> productPackages;
+        if (filter.isEmpty()) {
+            Pageable pageable = PageRequest.of(0, limit + 1);
+            productPackages = after == null
+                    ? packageRepository.findAllByOrderByIdAsc(pageable)
+                    : packageRepository.findByIdGreaterThanOrderByIdAsc(after, pageable);
+        } else {
+            productPackages = packageRepository.findBy(PackageSpecifications.matching(filter, after),
+                    query -> query.sortBy(Sort.by("id")).limit(limit + 1).all());
+        }
+        if (productPackages.size() <= limit) {
+            return new PackagePage(productPackages, null);
+        }
+        List<ProductPackage> page = productPackages.subList(0, limit);
+        return new PackagePage(page, page.get(limit - 1).getId());
+    }
+
+    public ProductPackagePage toProductPackagePage(PackagePage page, boolean expandProducts) {
+        List<ProductPackageDto> productPackageDtos = new ArrayList<>();
+        for (ProductPackage productPackage : page.productPackages()) {
+            ProductPackageDto dto = expandProducts ? enrich(productPackage) : ProductPackage.toDto(productPackage);
+            productPackageDtos.add(dto);
+        }
+        return new ProductPackagePage(productPackageDtos, page.nextCursor());
+    }
+
+    public void streamProductPackages(Consumer<ProductPackageDto> consumer) {
+        try (Stream<ProductPackage> productPackages = packageRepository.streamAllOrderById(STREAM_BATCH_SIZE)) {
+            productPackages.forEach(productPackage -> {
+                consumer.accept(enrich(productPackage));
+            });
+        }
+    }
+
     public ProductPackageDto update(Long id, ProductPackageDto productPackageDto) {
+        return update(id, productPackageDto, null);
+    }
+
+    // With an expected version the update only applies to that version of the package. Without one it still
+    // fails when the package changes between reading and saving it, instead of overwriting that change.
+    public ProductPackageDto update(Long id, ProductPackageDto productPackageDto, Long expectedVersion) {
         ProductPackage existingPackage = get(id);
         if (existingPackage == null) {
             throw new RecordNotFoundException("Provided packageId: " + id + " not found");
         }
+        if (expectedVersion != null && !expectedVersion.equals(existingPackage.getVersion())) {
+            throw new PreconditionFailedException("Provided packageId: " + id + " is at version "
+                    + existingPackage.getVersion() + ", not " + expectedVersion);
+        }
 
-        productPackageDto.getProductIds().forEach(productId -> {
-            if (productServiceGateway.getProduct(productId) == null) {
-                throw new IllegalArgumentException("Provided productId: "+ productId + " not found");
-            }
-        });
+        List<Product> products = resolveExistingProducts(productPackageDto.getProductIds());
+        List<String> previousProductIds = List.copyOf(existingPackage.getProductIds());
 
         existingPackage.setName(productPackageDto.getName());
         existingPackage.setDescription(productPackageDto.getDescription());
         existingPackage.setProductIds(productPackageDto.getProductIds());
+        existingPackage.setPrice(totalPrice(products));
 
         ProductPackage updatedPackage = packageRepository.save(existingPackage);
+        productPackageIndex.replace(id, previousProductIds, updatedPackage.getProductIds());
         ProductPackageDto updatedDto = ProductPackage.toDto(updatedPackage);
-        setProducts(updatedDto);
+        setProducts(updatedDto, products);
+        packageReadModel.put(updatedDto);
+        packageChangeFeed.updated(updatedDto);
         return updatedDto;
     }
 
+    // The tombstone is written in the same transaction, so delta sync can't miss a deletion
+    @Transactional
     public void delete(Long id) {
         ProductPackage existingPackage = get(id);
         if (existingPackage == null) {
             throw new RecordNotFoundException("Provided packageId: " + id + " not found");
         }
         packageRepository.delete(existingPackage);
+        packageTombstoneRepository.save(PackageTombstone.of(id, Instant.now()));
+        productPackageIndex.remove(id, existingPackage.getProductIds());
+        packageReadModel.remove(id);
+        packageChangeFeed.deleted(id);
+    }
+
+    private List<Product> resolveExistingProducts(List<String> productIds) {
+        List<Product> products = productResolver.resolve(productIds);
+        for (int i = 0; i < productIds.size(); i++) {
+            if (products.get(i) == null) {
+                throw new IllegalArgumentException("Provided productId: "+ productIds.get(i) + " not found");
+            }
+        }
+        return products;
+    }
+
+    private ProductPackageDto enrich(ProductPackage productPackage) {
+        ProductPackageDto snapshot = packageReadModel.get(productPackage.getId());
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return withProducts(ProductPackage.toDto(productPackage));
+    }
+
+    // Products are null when resolving them failed
+    private static void commit(PackageEnrichmentEvent event, List<String> productIds, List<Product> products) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.productCount = productIds.size();
+            event.missingProducts = products == null ? 0 : (int) products.stream().filter(Objects::isNull).count();
+            event.outcome = products == null ? "error" : "success";
+            event.commit();
+        }
+    }
+
+    static double totalPrice(List<Product> products) {
+        return products.stream().filter(Objects::nonNull).mapToDouble(Product::usdPrice).sum();
     }
 
-    private void setProducts(ProductPackageDto productPackageDto) {
+    public static void setProducts(ProductPackageDto productPackageDto, List<Product> products) {
         productPackageDto.setProducts(new ArrayList<>());
-        productPackageDto.getProductIds().forEach(productId ->  {
-            Product product = productServiceGateway.getProduct(productId);
+        productPackageDto.setPrice(0);
+        products.forEach(product ->  {
             if (product != null) {
                 productPackageDto.getProducts().add(product);
                 productPackageDto.setPrice(productPackageDto.getPrice() + product.usdPrice());
@@ -0,0 +1,79 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductInvalidationResult;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Applies upstream product changes: the changed products are dropped from the product cache and only the
+// packages containing them have their stored prices and snapshots recomputed
+@Service
+public class ProductInvalidationService {
+
+    private final ProductServiceGateway productServiceGateway;
+    private final ProductPackageIndex productPackageIndex;
+    private final PackageReadModel packageReadModel;
+    private final PackageRepository packageRepository;
+    private final ProductResolver productResolver;
+    private final PackageChangeFeed packageChangeFeed;
+
+    public ProductInvalidationService(ProductServiceGateway productServiceGateway, ProductPackageIndex productPackageIndex,
+                PackageReadModel packageReadModel, PackageRepository packageRepository, ProductResolver productResolver,
+                PackageChangeFeed packageChangeFeed) {
+        this.productServiceGateway = productServiceGateway;
+        this.productPackageIndex = productPackageIndex;
+        this.packageReadModel = packageReadModel;
+        this.packageRepository = packageRepository;
+        this.productResolver = productResolver;
+        this.packageChangeFeed = packageChangeFeed;
+    }
+
+    public ProductInvalidationResult invalidate(List<String> productIds) {
+        if (CollectionUtils.isEmpty(productIds)) {
+            throw new IllegalArgumentException("There should be at least one productId to invalidate");
+        }
+        Set<String> changedProductIds = new LinkedHashSet<>(productIds);
+        changedProductIds.forEach(productServiceGateway::evict);
+        Set<Long> packageIds = productPackageIndex.packagesContaining(changedProductIds);
+        if (!packageIds.isEmpty()) {
+            publishUpdates(packageIds, updatePrices(packageIds));
+        }
+        return new ProductInvalidationResult(List.copyOf(changedProductIds), packageIds.stream().sorted().toList());
+    }
+
+    // Keeps the stored price, which price range searches filter on, in line with the changed products. Every
+    // package gets a new version even when its price stayed the same, as its products did change.
+    private Map<String, Product> updatePrices(Set<Long> packageIds) {
+        Instant updatedAt = Instant.now();
+        List<ProductPackage> productPackages = packageRepository.findAllById(packageIds);
+        Map<String, Product> products = productResolver.resolveAll(productPackages.stream()
+                .flatMap(productPackage -> productPackage.getProductIds().stream())
+                .toList());
+        productPackages.forEach(productPackage -> packageRepository.updatePrice(productPackage.getId(),
+                PackageService.totalPrice(productPackage.getProductIds().stream().map(products::get).toList()),
+                updatedAt));
+        return products;
+    }
+
+    // Read back after the price updates, which gave the packages their new versions. The snapshots are replaced
+    // with these rather than recomputed from the old ones, so reads serve the new version and its ETag.
+    private void publishUpdates(Set<Long> packageIds, Map<String, Product> products) {
+        packageRepository.findAllById(packageIds).forEach(productPackage -> {
+            ProductPackageDto productPackageDto = ProductPackage.toDto(productPackage);
+            PackageService.setProducts(productPackageDto,
+                    productPackage.getProductIds().stream().map(products::get).toList());
+            packageReadModel.put(productPackageDto);
+            packageChangeFeed.updated(productPackageDto);
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+// Reverse index from productId to the packages containing it, so a product change upstream can be traced to
+// the packages it affects. Loaded before the application takes traffic and maintained on every package write;
+// writes racing the initial load can leave an extra package id behind, but a containing package is never missed.
+@Component
+public class ProductPackageIndex {
+
+    private static final int WARM_UP_BATCH_SIZE = 500;
+
+    private final PackageRepository packageRepository;
+    private final ConcurrentMap<String, Set<Long>> packagesByProduct = new ConcurrentHashMap<>();
+
+    public ProductPackageIndex(PackageRepository packageRepository) {
+        this.packageRepository = packageRepository;
+    }
+
+    @PostConstruct
+    void warmUp() {
+        try (Stream<ProductPackage> productPackages = packageRepository.streamAllOrderById(WARM_UP_BATCH_SIZE)) {
+            productPackages.forEach(productPackage -> add(productPackage.getId(), productPackage.getProductIds()));
+        }
+    }
+
+    public void add(Long packageId, Collection<String> productIds) {
+        if (productIds == null) {
+            return;
+        }
+        productIds.forEach(productId -> packagesByProduct.compute(productId, (id, packageIds) -> {
+            Set<Long> updated = packageIds == null ? ConcurrentHashMap.newKeySet() : packageIds;
+            updated.add(packageId);
+            return updated;
+        }));
+    }
+
+    // Adds the new products before dropping the old ones, so products the package keeps stay indexed throughout
+    public void replace(Long packageId, Collection<String> previousProductIds, Collection<String> productIds) {
+        add(packageId, productIds);
+        if (previousProductIds != null) {
+            Set<String> removed = new HashSet<>(previousProductIds);
+            if (productIds != null) {
+                removed.removeAll(productIds);
+            }
+            remove(packageId, removed);
+        }
+    }
+
+    public void remove(Long packageId, Collection<String> productIds) {
+        if (productIds == null) {
+            return;
+        }
+        productIds.forEach(productId -> packagesByProduct.computeIfPresent(productId, (id, packageIds) -> {
+            packageIds.remove(packageId);
+            return packageIds.isEmpty() ? null : packageIds;
+        }));
+    }
+
+    public Set<Long> packagesContaining(Collection<String> productIds) {
+        Set<Long> packageIds = new HashSet<>();
+        productIds.forEach(productId -> packageIds.addAll(packagesByProduct.getOrDefault(productId, Set.of())));
+        return packageIds;
+    }
+}
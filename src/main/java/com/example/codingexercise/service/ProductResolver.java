@@ -0,0 +1,148 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.ProductLookupProperties;
+import com.example.codingexercise.exception.UpstreamTimeoutException;
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.timing.RequestStages;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Component
+public class ProductResolver {
+
+    private static final int BATCH_CHUNK_SIZE = 200;
+
+    private final ProductServiceGateway productServiceGateway;
+    private final Executor productLookupExecutor;
+    private final ProductLookupProperties properties;
+    // Distinct product ids looked up per resolve, i.e. how many product service calls a request may fan out to
+    private final DistributionSummary fanout;
+
+    public ProductResolver(ProductServiceGateway productServiceGateway,
+                @Qualifier("productLookupExecutor") Executor productLookupExecutor,
+                ProductLookupProperties properties, MeterRegistry meterRegistry) {
+        this.productServiceGateway = productServiceGateway;
+        this.productLookupExecutor = productLookupExecutor;
+        this.properties = properties;
+        this.fanout = DistributionSummary.builder("product.lookup.fanout")
+                .baseUnit("products")
+                .register(meterRegistry);
+    }
+
+    // Returns the products in the order of the given ids, with null for ids the product service doesn't know
+    public List<Product> resolve(List<String> productIds) {
+        long startNanos = System.nanoTime();
+        try {
+            return lookUp(productIds);
+        } finally {
+            RequestStages.record(RequestStages.PRODUCT, startNanos);
+        }
+    }
+
+    private List<Product> lookUp(List<String> productIds) {
+        fanout.record(productIds.stream().distinct().count());
+        if (!properties.isParallel() || productIds.size() <= 1) {
+            List<Product> products = new ArrayList<>(productIds.size());
+            productIds.forEach(productId -> products.add(productServiceGateway.getProduct(productId)));
+            return products;
+        }
+
+        Map<String, CompletableFuture<Product>> lookups = new LinkedHashMap<>();
+        productIds.forEach(productId -> lookups.computeIfAbsent(productId, id ->
+                CompletableFuture.supplyAsync(() -> productServiceGateway.getProduct(id), productLookupExecutor)));
+        awaitAll(lookups.values());
+
+        List<Product> products = new ArrayList<>(productIds.size());
+        productIds.forEach(productId -> products.add(lookups.get(productId).join()));
+        return products;
+    }
+
+    // Resolves a large set of distinct ids, e.g. all products of a batch of packages, in chunks so each chunk
+    // gets the full lookup timeout. Ids the product service doesn't know are left out of the result.
+    public Map<String, Product> resolveAll(Collection<String> productIds) {
+        long startNanos = System.nanoTime();
+        try {
+            return lookUpAll(productIds);
+        } finally {
+            RequestStages.record(RequestStages.PRODUCT, startNanos);
+        }
+    }
+
+    private Map<String, Product> lookUpAll(Collection<String> productIds) {
+        List<String> distinctIds = productIds.stream().distinct().toList();
+        Map<String, Product> products = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += BATCH_CHUNK_SIZE) {
+            List<String> chunk = distinctIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, distinctIds.size()));
+            List<Product> resolved = lookUp(chunk);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (resolved.get(i) != null) {
+                    products.put(chunk.get(i), resolved.get(i));
+                }
+            }
+        }
+        return products;
+    }
+
+    // Non-blocking variant: all lookups are started at once and none of them holds a thread while in flight
+    public CompletableFuture<List<Product>> resolveAsync(List<String> productIds) {
+        long startNanos = System.nanoTime();
+        RequestStages stages = RequestStages.current();
+        Map<String, CompletableFuture<Product>> lookups = new LinkedHashMap<>();
+        productIds.forEach(productId -> lookups.computeIfAbsent(productId, productServiceGateway::getProductAsync));
+        fanout.record(lookups.size());
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[0]))
+                .orTimeout(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((ignored, e) -> {
+                    if (stages != null) {
+                        stages.add(RequestStages.PRODUCT, System.nanoTime() - startNanos);
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        throw new UpstreamTimeoutException("Product lookup did not complete within " + properties.getTimeout());
+                    }
+                    if (cause != null) {
+                        throw e instanceof CompletionException completionException ? completionException : new CompletionException(e);
+                    }
+                    List<Product> products = new ArrayList<>(productIds.size());
+                    productIds.forEach(productId -> products.add(lookups.get(productId).join()));
+                    return products;
+                });
+    }
+
+    private void awaitAll(Iterable<CompletableFuture<Product>> lookups) {
+        List<CompletableFuture<Product>> pending = new ArrayList<>();
+        lookups.forEach(pending::add);
+        CompletableFuture<Void> all = CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        try {
+            all.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            pending.forEach(lookup -> lookup.cancel(true));
+            throw new UpstreamTimeoutException("Product lookup did not complete within " + properties.getTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(lookup -> lookup.cancel(true));
+            throw new UpstreamTimeoutException("Product lookup was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.codingexercise.timing;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Wall-clock time a request spent per stage, reported in its Server-Timing header. Only requests passing
+// through ServerTimingFilter are timed; recording outside of one is a no-op.
+public final class RequestStages {
+
+    public static final String DB = "db";
+    public static final String PRODUCT = "product";
+    public static final String CURRENCY = "currency";
+
+    static final String ATTRIBUTE = RequestStages.class.getName();
+    private static final ThreadLocal<RequestStages> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentMap<String, LongAdder> nanosByStage = new ConcurrentHashMap<>();
+
+    // The stages of the request handled by this thread, or null; capture it before handing work to another thread
+    public static RequestStages current() {
+        return CURRENT.get();
+    }
+
+    public static void record(String stage, long startNanos) {
+        RequestStages stages = CURRENT.get();
+        if (stages != null) {
+            stages.add(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    public void add(String stage, long nanos) {
+        nanosByStage.computeIfAbsent(stage, key -> new LongAdder()).add(nanos);
+    }
+
+    static RequestStages begin() {
+        RequestStages stages = new RequestStages();
+        CURRENT.set(stages);
+        return stages;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    // Stages that ran in parallel each report their own time; "app" is the time until the body is written
+    String toHeader() {
+        StringJoiner header = new StringJoiner(", ");
+        Map<String, LongAdder> stages = new TreeMap<>(nanosByStage);
+        stages.forEach((stage, nanos) -> header.add(metric(stage, nanos.sum())));
+        header.add(metric("app", System.nanoTime() - startNanos));
+        return header.toString();
+    }
+
+    private static String metric(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.1f", name, nanos / 1_000_000.0);
+    }
+}
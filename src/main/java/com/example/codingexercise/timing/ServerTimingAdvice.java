@@ -0,0 +1,37 @@
+package com.example.codingexercise.timing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Adds the Server-Timing header right before the body is serialized, which is the last moment headers can
+// still be set; serialization itself is therefore not part of the breakdown. Spring MVC only finds advice
+// declared as @ControllerAdvice, so it is scanned rather than declared in ServerTimingConfig.
+@ControllerAdvice
+@ConditionalOnProperty(name = "server-timing.enabled", havingValue = "true")
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+                ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(RequestStages.ATTRIBUTE) instanceof RequestStages stages) {
+            response.getHeaders().add(SERVER_TIMING, stages.toHeader());
+        }
+        return body;
+    }
+}
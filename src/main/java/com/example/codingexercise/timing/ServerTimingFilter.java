@@ -0,0 +1,24 @@
+package com.example.codingexercise.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Starts timing the stages of each request; the request attribute carries them over to async dispatches
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        request.setAttribute(RequestStages.ATTRIBUTE, RequestStages.begin());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestStages.end();
+        }
+    }
+}
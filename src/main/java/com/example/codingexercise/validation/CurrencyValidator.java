@@ -2,17 +2,32 @@ package com.example.codingexercise.validation;
 
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Component
 public class CurrencyValidator {
 
-    private static final List<String> validCurrencies = Arrays.asList("USD", "EUR", "GBP", "JPY", "AUD", "CAD", "CHF", "CNY", "SEK", "NZD");
+    private static final Set<String> validCurrencies = Set.of("USD", "EUR", "GBP", "JPY", "AUD", "CAD", "CHF", "CNY", "SEK", "NZD");
 
     public static void validate(String currency) {
         if (!validCurrencies.contains(currency)) {
             throw new IllegalArgumentException("Invalid currency: " + currency);
         }
     }
+
+    // Checks the whole list in one pass and reports every invalid currency at once
+    public static void validate(Collection<String> currencies) {
+        List<String> invalid = new ArrayList<>();
+        for (String currency : currencies) {
+            if (!validCurrencies.contains(currency)) {
+                invalid.add(currency);
+            }
+        }
+        if (!invalid.isEmpty()) {
+            throw new IllegalArgumentException("Invalid currencies: " + String.join(", ", invalid));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.codingexercise;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ActuatorSecurityTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void metrics_anonymous_unauthorized() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/metrics", String.class);
+
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode(), "Unexpected status code");
+    }
+
+    @Test
+    void metrics_authenticated_ok() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/actuator/metrics", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+    }
+
+    @Test
+    void health_anonymous_ok() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/health", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+    }
+}
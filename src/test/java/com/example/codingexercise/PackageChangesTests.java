@@ -0,0 +1,115 @@
+package com.example.codingexercise;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "packages.changes.settle-time=0s")
+class PackageChangesTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private Instant since;
+
+    @BeforeEach
+    void setUp() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+        since = Instant.now();
+    }
+
+    private Long create(String name) {
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName(name);
+        productPackage.setProductIds(List.of("prod1"));
+        return restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .postForObject("/packages", productPackage, ProductPackageDto.class).getId();
+    }
+
+    private ResponseEntity<JsonNode> changes(String query, Object... uriVariables) {
+        return restTemplate.withBasicAuth(USER, USER_PASSWD).getForEntity("/packages?" + query, JsonNode.class,
+                uriVariables);
+    }
+
+    private static List<Long> ids(JsonNode array, String field) {
+        List<Long> ids = new ArrayList<>();
+        array.forEach(element -> ids.add(field == null ? element.asLong() : element.get(field).asLong()));
+        return ids;
+    }
+
+    @Test
+    void getChanges_returnsWritesAndDeletionsSinceCursor() {
+        Long kept = create("Kept");
+        Long deleted = create("Deleted");
+        restTemplate.withBasicAuth(USER, USER_PASSWD).delete("/packages/{id}", deleted);
+
+        ResponseEntity<JsonNode> response = changes("changedSince={since}", since);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(List.of(kept), ids(response.getBody().get("packages"), "id"));
+        assertEquals(List.of(deleted), ids(response.getBody().get("deleted"), null));
+        assertFalse(response.getBody().get("hasMore").asBoolean());
+
+        ResponseEntity<JsonNode> next = changes("changedSince={cursor}", response.getBody().get("cursor").asText());
+
+        assertTrue(next.getBody().get("packages").isEmpty(), "Nothing changed since the cursor");
+        assertTrue(next.getBody().get("deleted").isEmpty(), "Nothing was deleted since the cursor");
+    }
+
+    @Test
+    void getChanges_pagesFollowTheLinkHeader() {
+        List<Long> created = List.of(create("First"), create("Second"), create("Third"));
+
+        List<Long> synced = new ArrayList<>();
+        String url = "/packages?changedSince=" + since + "&fields=id&limit=2";
+        while (url != null) {
+            ResponseEntity<JsonNode> response = restTemplate.withBasicAuth(USER, USER_PASSWD).getForEntity(url, JsonNode.class);
+            synced.addAll(ids(response.getBody().get("packages"), "id"));
+            String link = response.getHeaders().getFirst(HttpHeaders.LINK);
+            url = link == null ? null : link.substring(1, link.indexOf('>'));
+        }
+
+        assertEquals(created, synced, "Every change should be synced once, oldest first");
+    }
+
+    @Test
+    void getChanges_olderThanTombstoneRetention_gone() {
+        ResponseEntity<JsonNode> response = changes("changedSince={since}", Instant.now().minus(Duration.ofDays(30)));
+
+        assertEquals(HttpStatus.GONE, response.getStatusCode(), "Unexpected status code");
+    }
+
+    @Test
+    void getChanges_invalidCursor_badRequest() {
+        ResponseEntity<JsonNode> response = changes("changedSince={since}", "yesterday");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode(), "Unexpected status code");
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.codingexercise;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductInvalidationRequest;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.repository.PackageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PackageConditionalRequestTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    private Long packageId;
+
+    @BeforeEach
+    void setUp() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+        packageRepository.deleteAll();
+        // created through the API so the package is known to product invalidations
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName("Conditional");
+        productPackage.setProductIds(List.of("prod1", "prod2"));
+        packageId = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .postForObject("/packages", productPackage, ProductPackageDto.class).getId();
+    }
+
+    private ResponseEntity<String> get(String url, String ifNoneMatch, Object... uriVariables) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class, uriVariables);
+    }
+
+    private ResponseEntity<String> put(ProductPackageDto productPackage, String ifMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifMatch != null) {
+            headers.setIfMatch(ifMatch);
+        }
+        return restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .exchange("/packages/{id}", HttpMethod.PUT, new HttpEntity<>(productPackage, headers), String.class, packageId);
+    }
+
+    private static ProductPackageDto renamed(String name) {
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName(name);
+        productPackage.setProductIds(List.of("prod1"));
+        return productPackage;
+    }
+
+    @Test
+    void getPackage_matchingETag_notModifiedWithoutProductLookups() {
+        String eTag = get("/packages/{id}", null, packageId).getHeaders().getETag();
+        assertNotNull(eTag, "ETag missing");
+        clearInvocations(productServiceGateway);
+
+        ResponseEntity<String> response = get("/packages/{id}", eTag, packageId);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), "Unexpected status code");
+        assertNull(response.getBody(), "Not modified response should have no body");
+        assertEquals(eTag, response.getHeaders().getETag());
+        verify(productServiceGateway, never()).getProduct(anyString());
+    }
+
+    @Test
+    void getPackage_afterUpdate_servesNewETag() {
+        String eTag = get("/packages/{id}", null, packageId).getHeaders().getETag();
+
+        ResponseEntity<String> updated = put(renamed("Renamed"), null);
+        ResponseEntity<String> response = get("/packages/{id}", eTag, packageId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertTrue(response.getBody().contains("Renamed"), "Updated package should be returned");
+        assertNotEquals(eTag, response.getHeaders().getETag(), "ETag should change with the package");
+        assertEquals(updated.getHeaders().getETag(), response.getHeaders().getETag(), "Update should return the new ETag");
+    }
+
+    @Test
+    void updatePackage_staleIfMatch_preconditionFailed() {
+        String eTag = get("/packages/{id}", null, packageId).getHeaders().getETag();
+        assertEquals(HttpStatus.OK, put(renamed("First"), eTag).getStatusCode(), "Unexpected status code");
+
+        ResponseEntity<String> response = put(renamed("Second"), eTag);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode(), "Unexpected status code");
+        assertEquals("First", packageRepository.findById(packageId).orElseThrow().getName(),
+                "Stale update should not overwrite the package");
+    }
+
+    @Test
+    void listPackages_matchingETag_notModifiedWithoutProductLookups() {
+        String eTag = get("/packages", null).getHeaders().getETag();
+        assertNotNull(eTag, "ETag missing");
+        clearInvocations(productServiceGateway);
+
+        ResponseEntity<String> response = get("/packages", eTag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode(), "Unexpected status code");
+        verify(productServiceGateway, never()).getProduct(anyString());
+    }
+
+    @Test
+    void listPackages_afterProductInvalidation_servesNewETag() {
+        String eTag = get("/packages", null).getHeaders().getETag();
+
+        restTemplate.withBasicAuth(USER, USER_PASSWD).postForEntity("/internal/products/invalidations",
+                new ProductInvalidationRequest(List.of("prod2")), String.class);
+        ResponseEntity<String> response = get("/packages", eTag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Changed products should change the page");
+    }
+
+    @Test
+    void getPackage_convertedPrice_hasNoETag() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}?fields=id,name", String.class, packageId);
+        ResponseEntity<String> converted = get("/packages/{id}?currency=USD", null, packageId);
+
+        assertNotNull(response.getHeaders().getETag(), "Projected read should have an ETag");
+        assertNull(converted.getHeaders().getETag(), "Converted prices are not covered by the package version");
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.codingexercise;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.BulkItemResult;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PackageQueryCountTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+    private static final int PACKAGES = 20;
+    // PackageService.STREAM_BATCH_SIZE and packages.max-page-size
+    private static final int STREAM_BATCH_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    private final TestRestTemplate restTemplate;
+    private final PackageRepository packageRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Statistics statistics;
+
+    private Long packageId;
+
+    @Autowired
+    PackageQueryCountTests(TestRestTemplate restTemplate, PackageRepository packageRepository,
+                           EntityManagerFactory entityManagerFactory) {
+        this.restTemplate = restTemplate;
+        this.packageRepository = packageRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+        packageRepository.deleteAll();
+        entityManagerFactory.getCache().evictAll();
+        for (int i = 0; i < PACKAGES; i++) {
+            ProductPackage productPackage = new ProductPackage();
+            productPackage.setName("Package " + i);
+            productPackage.setProductIds(List.of("prod" + i, "prod" + (i + 1)));
+            packageId = packageRepository.save(productPackage).getId();
+        }
+        statistics.clear();
+    }
+
+    // Adds packages up to the given total and starts again from cold caches and cleared statistics
+    private void seedUpTo(int total) {
+        List<ProductPackage> productPackages = new ArrayList<>();
+        for (int i = PACKAGES; i < total; i++) {
+            ProductPackage productPackage = new ProductPackage();
+            productPackage.setName("Package " + i);
+            productPackage.setProductIds(List.of("prod" + i));
+            productPackages.add(productPackage);
+        }
+        packageRepository.saveAll(productPackages);
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void getPackage_singleStatement() {
+        ResponseEntity<ProductPackageDto> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(2, response.getBody().getProductIds().size(), "Product ids should be loaded");
+        assertEquals(1, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    @Test
+    void getPackage_coldCache_loadsPackageOnce() {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        ResponseEntity<ProductPackageDto> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertNotNull(response.getHeaders().getETag(), "ETag missing");
+        // a second load for the ETag would be served from the second-level cache the first one filled
+        assertEquals(1, statistics.getEntityLoadCount(), "The ETag and body should come from a single load");
+        assertEquals(0, statistics.getSecondLevelCacheHitCount(), "The ETag and body should come from a single load");
+    }
+
+    @Test
+    void getPackage_repeatedRead_servedFromSecondLevelCache() {
+        restTemplate.withBasicAuth(USER, USER_PASSWD).getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+        statistics.clear();
+
+        ResponseEntity<ProductPackageDto> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(2, response.getBody().getProductIds().size(), "Product ids should be loaded");
+        assertEquals(0, statistics.getPrepareStatementCount(), "Repeated read should not hit the database");
+    }
+
+    @Test
+    void updatePackage_evictsCachedState() {
+        restTemplate.withBasicAuth(USER, USER_PASSWD).getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName("Renamed");
+        productPackage.setProductIds(List.of("prod7"));
+        restTemplate.withBasicAuth(USER, USER_PASSWD).put("/packages/{id}", productPackage, packageId);
+
+        ResponseEntity<ProductPackageDto> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+
+        assertEquals("Renamed", response.getBody().getName(), "Cached name should be replaced");
+        assertEquals(List.of("prod7"), response.getBody().getProductIds(), "Cached product ids should be replaced");
+    }
+
+    @Test
+    void deletePackage_evictsCachedState() {
+        restTemplate.withBasicAuth(USER, USER_PASSWD).getForEntity("/packages/{id}", ProductPackageDto.class, packageId);
+        restTemplate.withBasicAuth(USER, USER_PASSWD).delete("/packages/{id}", packageId);
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/{id}", String.class, packageId);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode(), "Deleted package should not be served from cache");
+    }
+
+    @Test
+    void listPackages_statementsIndependentOfPageSize() {
+        ResponseEntity<ProductPackageDto[]> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages?limit={limit}", ProductPackageDto[].class, PACKAGES);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(PACKAGES, response.getBody().length, "Unexpected page size");
+        // the page itself plus one batched select of the productIds of every package on it
+        assertEquals(2, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    @Test
+    void listPackages_maxPageSize_singleBatchedCollectionQuery() {
+        seedUpTo(MAX_PAGE_SIZE + 10);
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages?limit={limit}&fields={fields}", String.class, MAX_PAGE_SIZE, "id,productIds");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        // the page with its look-ahead row, and the productIds of all of them in one batch
+        assertEquals(2, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    @Test
+    void listPackages_filtered_singlePageQuery() {
+        ResponseEntity<ProductPackageDto[]> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages?productId={productId}&namePrefix={namePrefix}", ProductPackageDto[].class,
+                        "prod1", "Package");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(2, response.getBody().length, "Unexpected number of matching packages");
+        assertEquals(2, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    @Test
+    void listPackages_withoutProductFields_skipsProductLookups() {
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages?fields={fields}", String.class, "id,name,productIds");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertFalse(response.getBody().contains("\"price\""), "Price should not be returned");
+        verify(productServiceGateway, never()).getProduct(anyString());
+    }
+
+    @Test
+    void exportPackages_statementsPerBatchNotPerPackage() {
+        int packages = 2 * STREAM_BATCH_SIZE + 50;
+        seedUpTo(packages);
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .getForEntity("/packages/export", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(packages, response.getBody().lines().count(), "Unexpected number of exported packages");
+        // each of the three batches is one select of its packages plus one batched select of their productIds
+        assertEquals(6, statistics.getPrepareStatementCount(), "Unexpected number of SQL statements");
+    }
+
+    @Test
+    void bulkCreate_insertsInBatches() {
+        List<ProductPackageDto> productPackages = new ArrayList<>();
+        for (int i = 0; i < PACKAGES; i++) {
+            ProductPackageDto productPackage = new ProductPackageDto();
+            productPackage.setName("Bulk package " + i);
+            productPackage.setProductIds(List.of("prod" + i, "prod" + (i + 1)));
+            productPackages.add(productPackage);
+        }
+
+        ResponseEntity<BulkItemResult[]> response = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .postForEntity("/packages/bulk", productPackages, BulkItemResult[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        assertEquals(PACKAGES, response.getBody().length, "Unexpected number of results");
+        for (BulkItemResult result : response.getBody()) {
+            assertEquals(200, result.status(), "Unexpected item status");
+        }
+        // sequence allocation plus one batch per table, instead of two inserts per package
+        assertEquals(PACKAGES, statistics.getEntityInsertCount(), "Unexpected number of inserted packages");
+        assertTrue(statistics.getPrepareStatementCount() <= 4, "Inserts were not batched");
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.codingexercise;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductInvalidationRequest;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "packages.read-model.enabled=true")
+class PackageReadModelTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private Long packageId;
+
+    @BeforeEach
+    void setUp() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName("Snapshot");
+        productPackage.setProductIds(List.of("prod1", "prod2"));
+        packageId = restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .postForObject("/packages", productPackage, ProductPackageDto.class).getId();
+    }
+
+    @Test
+    void getPackage_afterProductInvalidation_servesNewVersion() {
+        String eTag = get(null).getHeaders().getETag();
+        assertNotNull(eTag, "ETag missing");
+
+        when(productServiceGateway.getProduct("prod2")).thenReturn(new Product("prod2", "Prod", 250));
+        restTemplate.withBasicAuth(USER, USER_PASSWD).postForEntity("/internal/products/invalidations",
+                new ProductInvalidationRequest(List.of("prod2")), String.class);
+        ResponseEntity<String> response = get(eTag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Invalidated package should not be reported unchanged");
+        assertTrue(response.getBody().contains("\"price\":350.0"), response.getBody());
+        String newETag = response.getHeaders().getETag();
+        assertNotEquals(eTag, newETag, "ETag should change with the package version");
+
+        ProductPackageDto renamed = new ProductPackageDto();
+        renamed.setName("Renamed");
+        renamed.setProductIds(List.of("prod1"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch(newETag);
+        ResponseEntity<String> updated = restTemplate.withBasicAuth(USER, USER_PASSWD).exchange("/packages/{id}",
+                HttpMethod.PUT, new HttpEntity<>(renamed, headers), String.class, packageId);
+
+        assertEquals(HttpStatus.OK, updated.getStatusCode(), "The served ETag should match the stored version");
+    }
+
+    private ResponseEntity<String> get(String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .exchange("/packages/{id}", HttpMethod.GET, new HttpEntity<>(headers), String.class, packageId);
+    }
+}
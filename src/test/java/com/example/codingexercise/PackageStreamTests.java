@@ -0,0 +1,155 @@
+package com.example.codingexercise;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PackageStreamTests {
+
+    private static final String USER = "user";
+    private static final String USER_PASSWD = "pass";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+    }
+
+    private Long create(String name) {
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setName(name);
+        productPackage.setProductIds(List.of("prod1"));
+        return restTemplate.withBasicAuth(USER, USER_PASSWD)
+                .postForObject("/packages", productPackage, ProductPackageDto.class).getId();
+    }
+
+    private Stream<String> open(String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/packages/stream"))
+                .header(HttpHeaders.AUTHORIZATION, "Basic " + Base64.getEncoder()
+                        .encodeToString((USER + ":" + USER_PASSWD).getBytes(StandardCharsets.UTF_8)))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode(), "Unexpected status code");
+        return response.body();
+    }
+
+    private static Event next(Iterator<String> lines) {
+        return assertTimeoutPreemptively(TIMEOUT, () -> {
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isEmpty() && name != null) {
+                    return new Event(id, name, data.toString());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3);
+                } else if (line.startsWith("event:")) {
+                    name = line.substring(6);
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5));
+                }
+            }
+            throw new AssertionError("Stream ended");
+        });
+    }
+
+    @Test
+    void stream_pushesPackageWrites() throws Exception {
+        try (Stream<String> stream = open(null)) {
+            Iterator<String> lines = stream.iterator();
+            Long id = create("Streamed");
+            ProductPackageDto renamed = new ProductPackageDto();
+            renamed.setName("Renamed");
+            renamed.setProductIds(List.of("prod2"));
+            restTemplate.withBasicAuth(USER, USER_PASSWD).put("/packages/{id}", renamed, id);
+            restTemplate.withBasicAuth(USER, USER_PASSWD).delete("/packages/{id}", id);
+
+            Event created = next(lines);
+            Event updated = next(lines);
+            Event deleted = next(lines);
+
+            assertEquals("created", created.name());
+            assertTrue(created.data().contains("\"name\":\"Streamed\""), created.data());
+            assertEquals("updated", updated.name());
+            assertTrue(updated.data().contains("\"name\":\"Renamed\""), updated.data());
+            assertEquals("deleted", deleted.name());
+            assertEquals("{\"type\":\"deleted\",\"id\":" + id + "}", deleted.data());
+        }
+    }
+
+    @Test
+    void stream_lastEventId_replaysMissedEvents() throws Exception {
+        Event seen;
+        try (Stream<String> stream = open(null)) {
+            create("Seen");
+            seen = next(stream.iterator());
+        }
+        Long missed = create("Missed");
+        restTemplate.withBasicAuth(USER, USER_PASSWD).delete("/packages/{id}", missed);
+
+        try (Stream<String> stream = open(seen.id())) {
+            Iterator<String> lines = stream.iterator();
+            Event created = next(lines);
+            Event deleted = next(lines);
+
+            assertEquals("created", created.name());
+            assertTrue(created.data().contains("\"id\":" + missed), created.data());
+            assertEquals("deleted", deleted.name());
+            assertTrue(deleted.data().contains("\"id\":" + missed), deleted.data());
+        }
+    }
+
+    @Test
+    void stream_unknownLastEventId_reset() throws Exception {
+        try (Stream<String> stream = open("unknown-1")) {
+            Event reset = next(stream.iterator());
+
+            assertEquals("reset", reset.name());
+            assertNotNull(reset.id(), "Reset should carry the id to resume from");
+        }
+    }
+
+    private record Event(String id, String name, String data) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.codingexercise.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the JMH benchmarks of this package and writes their results as JSON to target/jmh-results.json,
+// so runs of different releases can be compared. Excluded from the regular build; run with
+// `mvn test -Pbenchmark -Dtest=JmhBenchmarkTests`, optionally with -Djmh.include=<regex>, -Djmh.forks=...,
+// -Djmh.warmup-iterations=..., -Djmh.iterations=..., -Djmh.result=<file> and -Djmh.param.<name>=<v1>,<v2>
+@Tag("benchmark")
+class JmhBenchmarkTests {
+
+    private static final List<String> PARAMS = List.of("productCount", "catalogSize", "upstreamLatencyMs", "productCache");
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(System.getProperty("jmh.include", getClass().getPackageName() + "\\..*Benchmark\\."))
+                .forks(Integer.getInteger("jmh.forks", 1))
+                .warmupIterations(Integer.getInteger("jmh.warmup-iterations", 3))
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(Integer.getInteger("jmh.iterations", 5))
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-results.json"));
+        PARAMS.forEach(name -> {
+            String values = System.getProperty("jmh.param." + name);
+            if (values != null) {
+                options.param(name, values.split(","));
+            }
+        });
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        assertFalse(results.isEmpty(), "No benchmark matched");
+    }
+}
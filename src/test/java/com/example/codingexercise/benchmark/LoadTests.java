@@ -0,0 +1,279 @@
+package com.example.codingexercise.benchmark;
+
+import com.example.codingexercise.CodingExerciseApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives the application over HTTP with a mixed CRUD and read workload, with the product service and the
+// currency API replaced by an UpstreamStub, and reports throughput and latency percentiles per operation
+// (also written as JSON to target/loadtest-results.json). Excluded from the regular build; run with
+// `mvn test -Pbenchmark -Dtest=LoadTests`. Settings, as system properties:
+//   loadtest.clients, loadtest.warm-up-seconds, loadtest.duration-seconds, loadtest.packages (seeded packages),
+//   loadtest.catalog-size (products the stub knows), loadtest.mix (e.g. read=60,list=10,convert=10,create=10,update=5,delete=5),
+//   loadtest.product-latency / loadtest.currency-latency (fixed:<ms>, uniform:<min>-<max> or exponential:<mean>),
+//   loadtest.product-error-rate / loadtest.currency-error-rate (0..1), loadtest.profiles, loadtest.result
+@Tag("benchmark")
+class LoadTests {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 50);
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("loadtest.warm-up-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 30));
+    private static final int PACKAGES = Integer.getInteger("loadtest.packages", 1000);
+    private static final int CATALOG_SIZE = Integer.getInteger("loadtest.catalog-size", 500);
+    private static final String MIX = System.getProperty("loadtest.mix", "read=60,list=10,convert=10,create=10,update=5,delete=5");
+    private static final String PROFILES = System.getProperty("loadtest.profiles", "");
+    private static final Path RESULT = Path.of(System.getProperty("loadtest.result", "target/loadtest-results.json"));
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString("user:pass".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private String baseUrl;
+    private List<Long> seededIds;
+    private final ConcurrentLinkedDeque<Long> createdIds = new ConcurrentLinkedDeque<>();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        UpstreamStub.Settings settings = new UpstreamStub.Settings(
+                UpstreamStub.Latency.parse(System.getProperty("loadtest.product-latency", "uniform:20-80")),
+                Double.parseDouble(System.getProperty("loadtest.product-error-rate", "0.01")),
+                UpstreamStub.Latency.parse(System.getProperty("loadtest.currency-latency", "fixed:50")),
+                Double.parseDouble(System.getProperty("loadtest.currency-error-rate", "0.01")),
+                CATALOG_SIZE, CLIENTS);
+        Map<Operation, Integer> mix = parseMix(MIX);
+
+        try (UpstreamStub stub = UpstreamStub.start(settings);
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(CodingExerciseApplication.class)
+                     .profiles(PROFILES.isBlank() ? new String[0] : PROFILES.split(","))
+                     // passed as arguments so they take precedence over application.properties and the profiles
+                     .run("--server.port=0",
+                             "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                             "--product.service.base-url=" + stub.productBaseUrl(),
+                             "--currency.base-url=" + stub.currencyBaseUrl(),
+                             "--logging.level.root=WARN")) {
+            baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            seededIds = seed();
+            stub.setFaultsEnabled(true);
+
+            run(mix, WARM_UP);
+            Map<Operation, Recorder> results = run(mix, DURATION);
+
+            report(results, settings);
+            assertTrue(results.values().stream().anyMatch(recorder -> recorder.successes.get() > 0),
+                    "The workload should complete some requests");
+        }
+    }
+
+    private List<Long> seed() throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        for (int from = 0; from < PACKAGES; from += SEED_BATCH_SIZE) {
+            List<Map<String, Object>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + SEED_BATCH_SIZE, PACKAGES); i++) {
+                batch.add(newPackage("Package " + i));
+            }
+            HttpResponse<String> response = send(HttpRequest.newBuilder(URI.create(baseUrl + "/packages/bulk"))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch))));
+            assertEquals(200, response.statusCode(), "Seeding failed: " + response.body());
+            for (JsonNode result : objectMapper.readTree(response.body())) {
+                if (result.get("status").asInt() == 200) {
+                    ids.add(result.get("id").asLong());
+                }
+            }
+        }
+        assertFalse(ids.isEmpty(), "No package could be seeded");
+        return ids;
+    }
+
+    private Map<Operation, Recorder> run(Map<Operation, Integer> mix, Duration duration) throws InterruptedException {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        mix.keySet().forEach(operation -> recorders.put(operation, new Recorder()));
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    Operation operation = pick(mix, totalWeight);
+                    long start = System.nanoTime();
+                    boolean success;
+                    try {
+                        success = execute(operation);
+                    } catch (IOException e) {
+                        success = false;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    recorders.get(operation).record(System.nanoTime() - start, success);
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        recorders.values().forEach(recorder -> recorder.duration = duration);
+        return recorders;
+    }
+
+    private boolean execute(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long seededId = seededIds.get(random.nextInt(seededIds.size()));
+        HttpRequest.Builder request = switch (operation) {
+            case READ -> HttpRequest.newBuilder(URI.create(baseUrl + "/packages/" + seededId)).GET();
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/packages?limit=20&after="
+                    + (seededId - 1))).GET();
+            case CONVERT -> HttpRequest.newBuilder(URI.create(baseUrl + "/packages/" + seededId + "?currency=EUR")).GET();
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/packages"))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(newPackage("Created"))));
+            case UPDATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/packages/" + seededId))
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(newPackage("Updated"))));
+            case DELETE -> {
+                // only packages created by the workload are deleted, so reads and updates always find theirs
+                Long createdId = createdIds.pollFirst();
+                yield createdId == null ? null : HttpRequest.newBuilder(URI.create(baseUrl + "/packages/" + createdId)).DELETE();
+            }
+        };
+        if (request == null) {
+            return true;
+        }
+        HttpResponse<String> response = send(request);
+        boolean success = response.statusCode() == 200;
+        if (success && operation == Operation.CREATE) {
+            createdIds.addLast(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return success;
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.header("Authorization", AUTHORIZATION)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Map<String, Object> newPackage(String name) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Object> productPackage = new LinkedHashMap<>();
+        productPackage.put("name", name);
+        productPackage.put("description", "Load test package");
+        productPackage.put("productIds", List.of("prod" + random.nextInt(CATALOG_SIZE), "prod" + random.nextInt(CATALOG_SIZE)));
+        return productPackage;
+    }
+
+    private void report(Map<Operation, Recorder> results, UpstreamStub.Settings settings) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clients", CLIENTS);
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("packages", seededIds.size());
+        report.put("catalogSize", settings.catalogSize());
+        report.put("mix", MIX);
+        report.put("productErrorRate", settings.productErrorRate());
+        report.put("currencyErrorRate", settings.currencyErrorRate());
+        Map<String, Object> operations = new LinkedHashMap<>();
+        System.out.printf("%-8s %10s %8s %9s %9s %9s %9s%n", "op", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        results.forEach((operation, recorder) -> {
+            Map<String, Object> summary = recorder.summary();
+            operations.put(operation.name().toLowerCase(), summary);
+            System.out.printf("%-8s %10.1f %8d %9.1f %9.1f %9.1f %9.1f%n", operation.name().toLowerCase(),
+                    summary.get("throughput"), summary.get("errors"), summary.get("p50Ms"), summary.get("p90Ms"),
+                    summary.get("p99Ms"), summary.get("maxMs"));
+        });
+        report.put("operations", operations);
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(RESULT.toFile(), report);
+    }
+
+    private static Operation pick(Map<Operation, Integer> mix, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Mix weights changed while picking");
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+        assertFalse(weights.isEmpty(), "loadtest.mix should give at least one operation a positive weight");
+        return weights;
+    }
+
+    private enum Operation {
+        READ, LIST, CONVERT, CREATE, UPDATE, DELETE
+    }
+
+    private static final class Recorder {
+
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong successes = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private Duration duration;
+
+        void record(long latencyNanos, boolean success) {
+            latencies.add(latencyNanos);
+            (success ? successes : errors).incrementAndGet();
+        }
+
+        Map<String, Object> summary() {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", sorted.length);
+            summary.put("errors", errors.get());
+            summary.put("throughput", successes.get() * 1000.0 / duration.toMillis());
+            summary.put("p50Ms", percentileMillis(sorted, 50));
+            summary.put("p90Ms", percentileMillis(sorted, 90));
+            summary.put("p99Ms", percentileMillis(sorted, 99));
+            summary.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+            return summary;
+        }
+
+        private static double percentileMillis(long[] sorted, int percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
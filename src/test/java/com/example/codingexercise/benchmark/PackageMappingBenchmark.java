@@ -0,0 +1,74 @@
+package com.example.codingexercise.benchmark;
+
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.service.PackageService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Per-package CPU cost of the mapping done on every read and write, by number of products in the package
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PackageMappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int productCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductPackage productPackage;
+    private ProductPackageDto productPackageDto;
+    private List<Product> products;
+
+    @Setup
+    public void setUp() {
+        List<String> productIds = new ArrayList<>();
+        products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            productIds.add("prod" + i);
+            products.add(new Product("prod" + i, "Product " + i, 100 + i));
+        }
+        productPackage = new ProductPackage();
+        productPackage.setId(1L);
+        productPackage.setName("Package");
+        productPackage.setDescription("Benchmark package");
+        productPackage.setProductIds(productIds);
+        productPackageDto = ProductPackage.toDto(productPackage);
+        PackageService.setProducts(productPackageDto, products);
+    }
+
+    @Benchmark
+    public ProductPackageDto toDto() {
+        return ProductPackage.toDto(productPackage);
+    }
+
+    @Benchmark
+    public ProductPackage toEntity() {
+        return ProductPackageDto.toEntity(productPackageDto);
+    }
+
+    @Benchmark
+    public ProductPackageDto setProducts() {
+        ProductPackageDto dto = ProductPackage.toDto(productPackage);
+        PackageService.setProducts(dto, products);
+        return dto;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(productPackageDto);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.codingexercise.benchmark;
+
+import com.example.codingexercise.CodingExerciseApplication;
+import com.example.codingexercise.gateway.dto.PackageFilter;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.gateway.dto.ProductPackagePage;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import com.example.codingexercise.service.PackageService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// PackageService reads against an in-memory H2 catalog, with products served by a local stub that answers
+// after upstreamLatencyMs. The product cache is on by default, so the gateway path is measured warm;
+// run with -Djmh.param.productCache=false to send every lookup to the stub.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PackageServiceBenchmark {
+
+    private static final int DISTINCT_PRODUCTS = 500;
+    private static final int PAGE_SIZE = 100;
+    private static final PackageFilter NO_FILTER = new PackageFilter(null, null, null, null);
+
+    @Param({"100", "1000", "10000"})
+    public int catalogSize;
+
+    @Param({"0", "5"})
+    public long upstreamLatencyMs;
+
+    @Param({"true"})
+    public boolean productCache;
+
+    private UpstreamStub productStub;
+    private ConfigurableApplicationContext context;
+    private PackageService packageService;
+
+    @Setup
+    public void start() throws IOException {
+        productStub = UpstreamStub.start(Duration.ofMillis(upstreamLatencyMs), 100);
+        context = new SpringApplicationBuilder(CodingExerciseApplication.class).run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-" + System.nanoTime(),
+                "--product.service.base-url=" + productStub.productBaseUrl(),
+                "--product.cache.enabled=" + productCache,
+                "--logging.level.root=WARN");
+        createPackages(context.getBean(PackageRepository.class));
+        packageService = context.getBean(PackageService.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+        productStub.close();
+    }
+
+    @Benchmark
+    public List<ProductPackageDto> getAllProductPackages() {
+        return packageService.getAllProductPackages();
+    }
+
+    @Benchmark
+    public ProductPackagePage getProductPackagePage() {
+        return packageService.getProductPackagePage(null, PAGE_SIZE, NO_FILTER, true);
+    }
+
+    @Benchmark
+    public ProductPackagePage getProductPackagePage_withoutProducts() {
+        return packageService.getProductPackagePage(null, PAGE_SIZE, NO_FILTER, false);
+    }
+
+    private void createPackages(PackageRepository packageRepository) {
+        List<ProductPackage> productPackages = new ArrayList<>();
+        for (int i = 0; i < catalogSize; i++) {
+            ProductPackage productPackage = new ProductPackage();
+            productPackage.setName("Package " + i);
+            productPackage.setProductIds(List.of("prod" + i % DISTINCT_PRODUCTS, "prod" + (i + 1) % DISTINCT_PRODUCTS));
+            productPackage.setPrice(200.0);
+            productPackages.add(productPackage);
+        }
+        packageRepository.saveAll(productPackages);
+    }
+}
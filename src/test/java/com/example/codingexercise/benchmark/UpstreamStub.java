@@ -0,0 +1,162 @@
+package com.example.codingexercise.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Local stand-in for the product service and the currency API. GET /api/v1/products/prod{n} answers for
+// n < catalogSize, priced at 100 USD, and 404 otherwise; GET /latest answers with fixed USD rates.
+// Each endpoint delays its answers by its own latency distribution and fails with 503 at its own error
+// rate once faults are enabled. Point product.service.base-url at productBaseUrl() and currency.base-url
+// at currencyBaseUrl().
+public final class UpstreamStub implements AutoCloseable {
+
+    private static final String RATES = "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-01-02\","
+            + "\"rates\":{\"EUR\":0.85,\"GBP\":0.75,\"JPY\":150.0,\"CHF\":0.9}}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Settings settings;
+    private volatile boolean faultsEnabled;
+
+    private UpstreamStub(HttpServer server, ExecutorService executor, Settings settings) {
+        this.server = server;
+        this.executor = executor;
+        this.settings = settings;
+    }
+
+    // A product service without faults that knows every product id
+    public static UpstreamStub start(Duration productLatency, int backlog) throws IOException {
+        Latency latency = Latency.fixed(productLatency);
+        return start(new Settings(latency, 0, Latency.fixed(Duration.ZERO), 0, Integer.MAX_VALUE, backlog));
+    }
+
+    public static UpstreamStub start(Settings settings) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), settings.backlog());
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        UpstreamStub stub = new UpstreamStub(server, executor, settings);
+        server.createContext("/api/v1/products/", stub::product);
+        server.createContext("/latest", stub::rates);
+        server.start();
+        return stub;
+    }
+
+    public String productBaseUrl() {
+        return currencyBaseUrl() + "/api/v1";
+    }
+
+    public String currencyBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // Off initially, so test data can be set up through the application before errors are injected
+    public void setFaultsEnabled(boolean faultsEnabled) {
+        this.faultsEnabled = faultsEnabled;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void product(HttpExchange exchange) throws IOException {
+        if (delayOrFail(exchange, settings.productLatency(), settings.productErrorRate())) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        String id = path.substring(path.lastIndexOf('/') + 1);
+        if (!isInCatalog(id)) {
+            respond(exchange, 404, "{\"error\":\"Product not found\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"id\":\"" + id + "\",\"name\":\"Product " + id + "\",\"usdPrice\":100}");
+    }
+
+    private void rates(HttpExchange exchange) throws IOException {
+        if (!delayOrFail(exchange, settings.currencyLatency(), settings.currencyErrorRate())) {
+            respond(exchange, 200, RATES);
+        }
+    }
+
+    private boolean isInCatalog(String id) {
+        if (!id.startsWith("prod")) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(id.substring("prod".length())) < settings.catalogSize();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean delayOrFail(HttpExchange exchange, Latency latency, double errorRate) throws IOException {
+        Duration delay = latency.next();
+        if (!delay.isZero()) {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (faultsEnabled && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            respond(exchange, 503, "{\"error\":\"Injected failure\"}");
+            return true;
+        }
+        return false;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+
+    public record Settings(Latency productLatency, double productErrorRate, Latency currencyLatency,
+                           double currencyErrorRate, int catalogSize, int backlog) {
+    }
+
+    // Response delay distribution, parsed from "fixed:<ms>", "uniform:<min ms>-<max ms>" or "exponential:<mean ms>"
+    @FunctionalInterface
+    public interface Latency {
+
+        Duration next();
+
+        static Latency fixed(Duration latency) {
+            return () -> latency;
+        }
+
+        static Latency parse(String spec) {
+            String[] parts = spec.split(":", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid latency: " + spec);
+            }
+            switch (parts[0]) {
+                case "fixed":
+                    return fixed(Duration.ofMillis(Long.parseLong(parts[1])));
+                case "uniform":
+                    String[] bounds = parts[1].split("-", 2);
+                    long min = Long.parseLong(bounds[0]);
+                    long max = Long.parseLong(bounds[1]);
+                    return () -> Duration.ofMillis(ThreadLocalRandom.current().nextLong(min, max + 1));
+                case "exponential":
+                    double mean = Double.parseDouble(parts[1]);
+                    return () -> Duration.ofMillis(Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble())));
+                default:
+                    throw new IllegalArgumentException("Invalid latency: " + spec);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.codingexercise.benchmark;
+
+import com.example.codingexercise.CodingExerciseApplication;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Throughput of GET /packages/{id} against a product service stub with fixed latency, with the
+// virtual-threads profile off and on. Excluded from the regular build; run with `mvn test -Pbenchmark`
+// on a Java 21 runtime, optionally with -Dbenchmark.clients=... and -Dbenchmark.upstream-latency-ms=...
+// Clients, stub and service share the machine, so run it on a host with several cores.
+@Tag("benchmark")
+class VirtualThreadsBenchmarkTests {
+
+    private static final Duration UPSTREAM_LATENCY = Duration.ofMillis(Long.getLong("benchmark.upstream-latency-ms", 100));
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1000);
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("benchmark.warm-up-seconds", 5));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Long.getLong("benchmark.measurement-seconds", 15));
+    private static final int PACKAGES = 2000;
+    private static final String AUTHORIZATION = "Basic " + Base64.getEncoder()
+            .encodeToString("user:pass".getBytes(StandardCharsets.UTF_8));
+
+    private static UpstreamStub productStub;
+
+    @BeforeAll
+    static void startProductStub() throws IOException {
+        productStub = UpstreamStub.start(UPSTREAM_LATENCY, CLIENTS);
+    }
+
+    @AfterAll
+    static void stopProductStub() {
+        productStub.close();
+    }
+
+    @Test
+    void throughput_platformVersusVirtualThreads() throws InterruptedException {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need a Java 21 runtime");
+
+        Result platform = measure(false);
+        Result virtual = measure(true);
+
+        System.out.printf("Upstream latency %d ms, %d concurrent clients%n", UPSTREAM_LATENCY.toMillis(), CLIENTS);
+        System.out.printf("platform threads: %8.1f req/s, %d errors%n", platform.throughput(), platform.errors());
+        System.out.printf("virtual threads:  %8.1f req/s, %d errors%n", virtual.throughput(), virtual.errors());
+        assertTrue(platform.requests() > 0 && virtual.requests() > 0, "Both runs should serve requests");
+    }
+
+    private Result measure(boolean virtualThreads) throws InterruptedException {
+        SpringApplicationBuilder application = new SpringApplicationBuilder(CodingExerciseApplication.class);
+        if (virtualThreads) {
+            application.profiles("virtual-threads");
+        }
+        // passed as arguments so they take precedence over application.properties and the profile
+        try (ConfigurableApplicationContext context = application.run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + (virtualThreads ? "virtual" : "platform"),
+                "--product.service.base-url=" + productStub.productBaseUrl(),
+                // every request has to reach the stub, and both runs get the same connection pool
+                // so the difference comes from the threading model alone
+                "--product.cache.enabled=false",
+                "--gateway.product.max-connections=" + CLIENTS,
+                "--gateway.product.max-connections-per-route=" + CLIENTS)) {
+            List<Long> packageIds = createPackages(context.getBean(PackageRepository.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            // one request first, so the clients don't all pay for the initial BCrypt check of the credentials
+            run(port, packageIds, 1, Duration.ZERO);
+            run(port, packageIds, CLIENTS, WARM_UP);
+            return run(port, packageIds, CLIENTS, MEASUREMENT);
+        }
+    }
+
+    private List<Long> createPackages(PackageRepository packageRepository) {
+        List<ProductPackage> productPackages = new ArrayList<>();
+        for (int i = 0; i < PACKAGES; i++) {
+            ProductPackage productPackage = new ProductPackage();
+            productPackage.setName("Package " + i);
+            // a product per package, so concurrent reads don't share a single-flight lookup
+            productPackage.setProductIds(List.of("prod" + i));
+            productPackages.add(productPackage);
+        }
+        return packageRepository.saveAll(productPackages).stream().map(ProductPackage::getId).toList();
+    }
+
+    private Result run(int port, List<Long> packageIds, int clientCount, Duration duration) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        AtomicLong requests = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(clientCount);
+        for (int c = 0; c < clientCount; c++) {
+            int offset = c;
+            clients.execute(() -> {
+                for (int i = offset; i == offset || System.nanoTime() < deadline; i += clientCount) {
+                    Long packageId = packageIds.get(i % packageIds.size());
+                    HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/packages/" + packageId))
+                            .header("Authorization", AUTHORIZATION)
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        (response.statusCode() == 200 ? requests : errors).incrementAndGet();
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return new Result(requests.get(), errors.get(), duration);
+    }
+
+    private record Result(long requests, long errors, Duration duration) {
+
+        double throughput() {
+            return requests * 1000.0 / duration.toMillis();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.codingexercise.controller;
+
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackageProjectionTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_noParameters_keepsFullExpansion() {
+        PackageProjection projection = PackageProjection.of(null, null);
+        ProductPackageDto productPackage = productPackage();
+
+        assertTrue(projection.expandProducts());
+        assertSame(productPackage, projection.apply(productPackage, objectMapper));
+    }
+
+    @Test
+    void of_fieldsWithoutProducts_skipsExpansion() {
+        PackageProjection projection = PackageProjection.of(null, List.of("id", "name", "productIds"));
+
+        JsonNode node = (JsonNode) projection.apply(productPackage(), objectMapper);
+
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+
+        assertFalse(projection.expandProducts());
+        assertEquals(Set.of("id", "name", "productIds"), names);
+    }
+
+    @Test
+    void of_priceField_expandsProducts() {
+        assertTrue(PackageProjection.of(null, List.of("id", "price")).expandProducts());
+        assertTrue(PackageProjection.of(List.of("products"), null).expandProducts());
+    }
+
+    @Test
+    void apply_emptyExpand_omitsProductsAndPrice() {
+        PackageProjection projection = PackageProjection.of(List.of(""), null);
+
+        JsonNode node = (JsonNode) projection.apply(productPackage(), objectMapper);
+
+        assertFalse(node.has("products"));
+        assertFalse(node.has("price"));
+        assertEquals("Package", node.get("name").asText());
+    }
+
+    @Test
+    void withPrice_expandsProducts() {
+        assertTrue(PackageProjection.of(null, List.of("id")).withPrice().expandProducts());
+    }
+
+    @Test
+    void of_unknownField_throws() {
+        assertThrows(IllegalArgumentException.class, () -> PackageProjection.of(null, List.of("secret")));
+        assertThrows(IllegalArgumentException.class, () -> PackageProjection.of(List.of("owner"), null));
+    }
+
+    private ProductPackageDto productPackage() {
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setId(1L);
+        productPackage.setName("Package");
+        productPackage.setDescription("Desc");
+        productPackage.setProductIds(List.of("prod1"));
+        productPackage.setProducts(List.of(new Product("prod1", "Prod 1", 100)));
+        productPackage.setPrice(100);
+        return productPackage;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.codingexercise.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLimiterTest {
+
+    @Test
+    void submit_queuesRequestsOverTheCap() {
+        AsyncLimiter limiter = new AsyncLimiter(2);
+        List<CompletableFuture<String>> upstream = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            results.add(limiter.submit(() -> {
+                CompletableFuture<String> request = new CompletableFuture<>();
+                upstream.add(request);
+                return request;
+            }));
+        }
+
+        assertEquals(2, upstream.size(), "Only two requests should have been started");
+        assertEquals(2, limiter.inFlight());
+
+        upstream.get(0).complete("first");
+        assertEquals("first", results.get(0).join());
+        assertEquals(3, upstream.size(), "The queued request should start once a slot frees up");
+
+        upstream.get(1).complete("second");
+        upstream.get(2).complete("third");
+        assertEquals("third", results.get(2).join());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void submit_releasesSlotOnFailure() {
+        AsyncLimiter limiter = new AsyncLimiter(1);
+
+        CompletableFuture<String> failed = limiter.submit(() -> {
+            throw new IllegalStateException("upstream down");
+        });
+        CompletableFuture<String> next = limiter.submit(() -> CompletableFuture.completedFuture("ok"));
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("ok", next.join());
+        assertEquals(0, limiter.inFlight());
+    }
+}
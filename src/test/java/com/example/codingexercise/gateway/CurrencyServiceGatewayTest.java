@@ -0,0 +1,197 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.MutableClock;
+import com.example.codingexercise.config.CurrencyProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class CurrencyServiceGatewayTest {
+
+    private static final String RATES_URL = "http://currency-stub/latest?from=USD";
+    private static final String RATES = "{\"amount\":1.0,\"base\":\"USD\",\"date\":\"2024-01-02\",\"rates\":{\"EUR\":0.85,\"GBP\":0.75}}";
+
+    private final MutableClock clock = new MutableClock();
+    private final TaskScheduler taskScheduler = mock(TaskScheduler.class);
+    private final List<Runnable> currencyTasks = new ArrayList<>();
+    private final Executor currencyExecutor = currencyTasks::add;
+
+    private MockRestServiceServer currencyStub;
+    private CurrencyServiceGateway currencyServiceGateway;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        currencyStub = MockRestServiceServer.bindTo(restTemplate).build();
+        CurrencyProperties properties = new CurrencyProperties();
+        properties.setBaseUrl("http://currency-stub");
+        properties.setRefreshInterval(Duration.ofMinutes(10));
+        properties.setMaxStaleness(Duration.ofHours(1));
+        currencyServiceGateway = new CurrencyServiceGateway(restTemplate, properties, taskScheduler,
+                currencyExecutor, new SimpleMeterRegistry(), clock);
+    }
+
+    private void runCurrencyTasks() {
+        List<Runnable> queued = new ArrayList<>(currencyTasks);
+        currencyTasks.clear();
+        queued.forEach(Runnable::run);
+    }
+
+    @Test
+    void convertUsdTo_fetchesRateTableOnce() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+
+        assertEquals(85.0, currencyServiceGateway.convertUsdTo(100.0, "EUR"), 0.0001);
+        assertEquals(75.0, currencyServiceGateway.convertUsdTo(100.0, "GBP"), 0.0001);
+        assertEquals(17.0, currencyServiceGateway.convertUsdTo(20.0, "EUR"), 0.0001);
+
+        currencyStub.verify();
+    }
+
+    @Test
+    void usdRates_manyCurrencies_singleFetch() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+
+        Map<String, Double> rates = currencyServiceGateway.usdRates(List.of("EUR", "USD", "GBP", "JPY"));
+
+        assertEquals(Map.of("EUR", 0.85, "USD", 1.0, "GBP", 0.75, "JPY", 0.0), rates);
+        assertEquals(List.of("EUR", "USD", "GBP", "JPY"), List.copyOf(rates.keySet()));
+        currencyStub.verify();
+    }
+
+    @Test
+    void usdRates_onlyUsd_doesNotCallUpstream() {
+        assertEquals(Map.of("USD", 1.0), currencyServiceGateway.usdRates(List.of("USD")));
+
+        currencyStub.verify();
+    }
+
+    @Test
+    void convertUsdTo_usd_doesNotCallUpstream() {
+        assertEquals(100.0, currencyServiceGateway.convertUsdTo(100.0, "USD"));
+
+        currencyStub.verify();
+    }
+
+    @Test
+    void convertUsdTo_afterRefreshInterval_servesStaleAndRefreshesInBackground() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        clock.advance(Duration.ofMinutes(20));
+        assertEquals(85.0, currencyServiceGateway.convertUsdTo(100.0, "EUR"), 0.0001);
+
+        currencyStub.verify();
+        assertEquals(1, currencyTasks.size());
+    }
+
+    @Test
+    void convertUsdTo_afterRefreshInterval_schedulesOneRefreshAtATime() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        clock.advance(Duration.ofMinutes(20));
+        for (int i = 0; i < 5; i++) {
+            currencyServiceGateway.convertUsdTo(100.0, "EUR");
+        }
+
+        assertEquals(1, currencyTasks.size());
+    }
+
+    @Test
+    void scheduledRefresh_fetchesOnCurrencyExecutor() {
+        ArgumentCaptor<Runnable> scheduledRefresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler).scheduleWithFixedDelay(scheduledRefresh.capture(), any(Instant.class), any(Duration.class));
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+
+        scheduledRefresh.getValue().run();
+        scheduledRefresh.getValue().run();
+        assertEquals(1, currencyTasks.size(), "The scheduler should only hand one fetch off");
+        runCurrencyTasks();
+
+        currencyStub.verify();
+        assertEquals(85.0, currencyServiceGateway.convertUsdTo(100.0, "EUR"), 0.0001);
+    }
+
+    @Test
+    void convertUsdTo_failedRefresh_backsOff() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withServerError());
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        clock.advance(Duration.ofMinutes(20));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+        runCurrencyTasks();
+        clock.advance(Duration.ofSeconds(30));
+        assertEquals(85.0, currencyServiceGateway.convertUsdTo(100.0, "EUR"), 0.0001);
+
+        currencyStub.verify();
+        assertTrue(currencyTasks.isEmpty(), "No refresh should be scheduled while backing off");
+
+        clock.advance(Duration.ofMinutes(1));
+        currencyStub.reset();
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+        runCurrencyTasks();
+
+        currencyStub.verify();
+    }
+
+    @Test
+    void convertUsdTo_beyondMaxStaleness_refetches() {
+        currencyStub.expect(ExpectedCount.times(2), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        clock.advance(Duration.ofHours(2));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        currencyStub.verify();
+    }
+
+    @Test
+    void convertUsdToAsync_servesCachedRatesWithoutScheduling() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+        currencyServiceGateway.convertUsdTo(100.0, "EUR");
+
+        CompletableFuture<Double> converted = currencyServiceGateway.convertUsdToAsync(100.0, "GBP");
+
+        assertTrue(converted.isDone(), "Cached rates should convert immediately");
+        assertEquals(75.0, converted.join(), 0.0001);
+        assertTrue(currencyTasks.isEmpty());
+    }
+
+    @Test
+    void convertUsdToAsync_noRates_fetchesOnCurrencyExecutor() {
+        currencyStub.expect(ExpectedCount.once(), requestTo(RATES_URL)).andRespond(withSuccess(RATES, MediaType.APPLICATION_JSON));
+
+        CompletableFuture<Double> first = currencyServiceGateway.convertUsdToAsync(100.0, "EUR");
+        CompletableFuture<Map<String, Double>> second = currencyServiceGateway.usdRatesAsync(List.of("GBP"));
+        assertFalse(first.isDone(), "The fetch should not run on the caller's thread");
+        runCurrencyTasks();
+
+        assertEquals(85.0, first.join(), 0.0001);
+        assertEquals(Map.of("GBP", 0.75), second.join());
+        currencyStub.verify();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.jfr.ProductLookupEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayTimerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GatewayTimer timer = new GatewayTimer(meterRegistry, "product", null);
+
+    @TempDir
+    Path tempDir;
+
+    private long count(String method, String outcome) {
+        return meterRegistry.get(GatewayTimer.METRIC)
+                .tags("gateway", "product", "method", method, "outcome", outcome)
+                .timer().count();
+    }
+
+    @Test
+    void record_tagsOutcome() {
+        timer.record("getProduct", new ProductLookupEvent("prod1"), () -> "found");
+        timer.record("getProduct", new ProductLookupEvent("prod2"), () -> null);
+        assertThrows(IllegalStateException.class, () ->
+                timer.record("getProduct", new ProductLookupEvent("prod3"), () -> {
+                    throw new IllegalStateException("upstream down");
+                }));
+
+        assertEquals(1, count("getProduct", "success"));
+        assertEquals(1, count("getProduct", "not_found"));
+        assertEquals(1, count("getProduct", "error"));
+    }
+
+    @Test
+    void record_emitsFlightRecorderEvent() throws Exception {
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ProductLookupEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            timer.record("getProduct", new ProductLookupEvent("prod1"), () -> null);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        assertEquals(1, events.size());
+        assertEquals("prod1", events.get(0).getString("productId"));
+        assertEquals("getProduct", events.get(0).getString("method"));
+        assertEquals("not_found", events.get(0).getString("outcome"));
+    }
+
+    @Test
+    void recordAsync_recordsOnCompletion() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> result = timer.recordAsync("getProductAsync", new ProductLookupEvent("prod1"), () -> pending);
+
+        assertNull(meterRegistry.find(GatewayTimer.METRIC).timer());
+        pending.completeExceptionally(new IllegalStateException("upstream down"));
+
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(1, count("getProductAsync", "error"));
+    }
+}
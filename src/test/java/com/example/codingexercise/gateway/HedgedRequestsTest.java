@@ -0,0 +1,126 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.config.ProductResilienceProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgedRequestsTest {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    private ExecutorService executor;
+    private ProductResilienceProperties.Hedging settings;
+    private HedgedRequests hedgedRequests;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        settings = new ProductResilienceProperties.Hedging();
+        settings.setEnabled(true);
+        settings.setInitialDelay(Duration.ofMillis(50));
+        hedgedRequests = new HedgedRequests(settings, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void call_slowFirstAttempt_returnsHedgedAnswer() {
+        long start = System.nanoTime();
+        String result = hedgedRequests.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "hedged";
+        });
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals("hedged", result);
+        assertEquals(2, attempts.get());
+        assertTrue(elapsedMillis < 1000, "Hedged answer should win, took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void call_fastAttempt_doesNotHedge() {
+        String result = hedgedRequests.call(() -> "v" + attempts.incrementAndGet());
+
+        assertEquals("v1", result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void call_slowAttemptFailsAfterHedge_returnsHedgedAnswer() {
+        String result = hedgedRequests.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(200);
+                throw new IllegalStateException("upstream error");
+            }
+            sleep(400);
+            return "hedged";
+        });
+
+        assertEquals("hedged", result);
+    }
+
+    @Test
+    void call_everyAttemptFails_throwsException() {
+        assertThrows(IllegalStateException.class, () -> hedgedRequests.call(() -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            throw new IllegalStateException("upstream error");
+        }));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void call_disabled_neverHedges() {
+        settings.setEnabled(false);
+
+        String result = hedgedRequests.call(() -> {
+            attempts.incrementAndGet();
+            sleep(150);
+            return "slow";
+        });
+
+        assertEquals("slow", result);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void hedgeDelay_followsObservedPercentile() {
+        settings.setEnabled(false);
+        settings.setMinSamples(10);
+        settings.setMinDelay(Duration.ZERO);
+        assertEquals(settings.getInitialDelay(), hedgedRequests.hedgeDelay());
+
+        for (int i = 0; i < 20; i++) {
+            hedgedRequests.call(() -> {
+                sleep(10);
+                return "fast";
+            });
+        }
+
+        Duration delay = hedgedRequests.hedgeDelay();
+        assertTrue(delay.compareTo(Duration.ofMillis(10)) >= 0, "Unexpected hedge delay " + delay);
+        assertTrue(delay.compareTo(Duration.ofMillis(500)) < 0, "Unexpected hedge delay " + delay);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.config.ProductCacheProperties;
+import com.example.codingexercise.gateway.dto.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCacheTest {
+
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+
+    private final Function<String, Product> loader = id -> {
+        remoteCalls.incrementAndGet();
+        return "missing".equals(id) ? null : new Product(id, "Prod " + id, 100);
+    };
+
+    private ProductCache newCache(boolean enabled) {
+        ProductCacheProperties properties = new ProductCacheProperties();
+        properties.setEnabled(enabled);
+        return new ProductCache(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void get_cachesFoundProducts() {
+        ProductCache cache = newCache(true);
+
+        Product first = cache.get("prod1", loader);
+        Product second = cache.get("prod1", loader);
+
+        assertEquals(first, second);
+        assertEquals(1, remoteCalls.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_cachesNotFound() {
+        ProductCache cache = newCache(true);
+
+        assertNull(cache.get("missing", loader));
+        assertNull(cache.get("missing", loader));
+
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void get_doesNotCacheFailures() {
+        ProductCache cache = newCache(true);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("prod1", id -> {
+            throw new IllegalStateException("upstream down");
+        }));
+        cache.get("prod1", loader);
+
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    void evict_forcesReload() {
+        ProductCache cache = newCache(true);
+
+        cache.get("prod1", loader);
+        cache.evict("prod1");
+        cache.get("prod1", loader);
+
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    void evict_duringLoad_doesNotCacheLoadedProduct() {
+        ProductCache cache = newCache(true);
+
+        cache.get("prod1", id -> {
+            cache.evict(id);
+            return loader.apply(id);
+        });
+        cache.get("prod1", loader);
+
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    void get_disabled_alwaysLoads() {
+        ProductCache cache = newCache(false);
+
+        cache.get("prod1", loader);
+        cache.get("prod1", loader);
+
+        assertEquals(2, remoteCalls.get());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.codingexercise.gateway;
+
+import com.example.codingexercise.config.GatewayProperties;
+import com.example.codingexercise.config.ProductCacheProperties;
+import com.example.codingexercise.config.ProductResilienceProperties;
+import com.example.codingexercise.exception.UpstreamUnavailableException;
+import com.example.codingexercise.gateway.dto.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class ProductServiceGatewayTest {
+
+    private static final String PRODUCT_URL = "https://product-service.herokuapp.com/api/v1/products/";
+
+    private final HttpClient asyncHttpClient = mock(HttpClient.class);
+
+    private MockRestServiceServer productStub;
+    private ProductServiceGateway productServiceGateway;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setUriTemplateHandler(new DefaultUriBuilderFactory("https://product-service.herokuapp.com/api/v1"));
+        productStub = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+
+        ProductCacheProperties cacheProperties = new ProductCacheProperties();
+        cacheProperties.setEnabled(false);
+        ProductResilienceProperties resilienceProperties = new ProductResilienceProperties();
+        resilienceProperties.getCircuitBreaker().setSlidingWindowSize(2);
+        resilienceProperties.getCircuitBreaker().setMinimumNumberOfCalls(2);
+
+        productServiceGateway = new ProductServiceGateway(restTemplate, asyncHttpClient, new ObjectMapper(),
+                new GatewayProperties(), new ProductCache(cacheProperties, new SimpleMeterRegistry()),
+                resilienceProperties, Runnable::run, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubAsyncResponse(String id, int status, String body) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        when(asyncHttpClient.sendAsync(argThat((HttpRequest request) -> request != null
+                && request.uri().equals(URI.create(PRODUCT_URL + id))), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @Test
+    void getProduct_notFound_returnsNull() {
+        productStub.expect(requestTo(PRODUCT_URL + "missing")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        assertNull(productServiceGateway.getProduct("missing"));
+        assertEquals(CircuitBreaker.State.CLOSED, productServiceGateway.getCircuitBreakerState());
+    }
+
+    @Test
+    void getProduct_breakerOpen_servesLastKnownProduct() {
+        productStub.expect(ExpectedCount.once(), requestTo(PRODUCT_URL + "prod1"))
+                .andRespond(withSuccess("{\"id\":\"prod1\",\"name\":\"Prod 1\",\"usdPrice\":100}", MediaType.APPLICATION_JSON));
+        productStub.expect(ExpectedCount.once(), requestTo(PRODUCT_URL + "prod2"))
+                .andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        Product product = productServiceGateway.getProduct("prod1");
+        // one failure out of the two calls in the window reaches the 50% threshold
+        assertThrows(Exception.class, () -> productServiceGateway.getProduct("prod2"));
+
+        assertEquals(CircuitBreaker.State.OPEN, productServiceGateway.getCircuitBreakerState());
+        assertEquals(product, productServiceGateway.getProduct("prod1"));
+        assertThrows(UpstreamUnavailableException.class, () -> productServiceGateway.getProduct("prod3"));
+        productStub.verify();
+    }
+
+    @Test
+    void getProductAsync_readsProduct() {
+        stubAsyncResponse("prod1", 200, "{\"id\":\"prod1\",\"name\":\"Prod 1\",\"usdPrice\":100}");
+
+        Product product = productServiceGateway.getProductAsync("prod1").join();
+
+        assertEquals(new Product("prod1", "Prod 1", 100), product);
+    }
+
+    @Test
+    void getProductAsync_notFound_returnsNull() {
+        stubAsyncResponse("missing", 404, "");
+
+        assertNull(productServiceGateway.getProductAsync("missing").join());
+        assertEquals(CircuitBreaker.State.CLOSED, productServiceGateway.getCircuitBreakerState());
+    }
+
+    @Test
+    void getProductAsync_breakerOpen_servesLastKnownProduct() {
+        stubAsyncResponse("prod1", 200, "{\"id\":\"prod1\",\"name\":\"Prod 1\",\"usdPrice\":100}");
+        stubAsyncResponse("prod2", 500, "");
+
+        Product product = productServiceGateway.getProductAsync("prod1").join();
+        assertThrows(CompletionException.class, () -> productServiceGateway.getProductAsync("prod2").join());
+
+        assertEquals(CircuitBreaker.State.OPEN, productServiceGateway.getCircuitBreakerState());
+        assertEquals(product, productServiceGateway.getProductAsync("prod1").join());
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> productServiceGateway.getProductAsync("prod3").join());
+        assertInstanceOf(UpstreamUnavailableException.class, failure.getCause());
+    }
+}
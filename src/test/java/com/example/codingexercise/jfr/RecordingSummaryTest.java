@@ -0,0 +1,67 @@
+package com.example.codingexercise.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingSummaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static void request(String endpoint, long enrichmentMillis) throws InterruptedException {
+        HttpRequestEvent request = new HttpRequestEvent();
+        request.begin();
+        PackageEnrichmentEvent enrichment = new PackageEnrichmentEvent(1L);
+        enrichment.begin();
+        Thread.sleep(enrichmentMillis);
+        enrichment.productCount = 2;
+        enrichment.outcome = "success";
+        enrichment.commit();
+        request.method = "GET";
+        request.endpoint = endpoint;
+        request.status = 200;
+        request.commit();
+    }
+
+    @Test
+    void summarize_tablesPerEndpointWithStages() throws Exception {
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(HttpRequestEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(PackageEnrichmentEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(ProductLookupEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            request("/packages/{id}", 20);
+            request("/packages/{id}", 20);
+            request("/packages", 0);
+            ProductLookupEvent lookup = new ProductLookupEvent("prod1");
+            lookup.method = "getProduct";
+            lookup.outcome = "not_found";
+            lookup.commit();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        String summary = RecordingSummary.summarize(events);
+
+        List<String> lines = summary.lines().toList();
+        String packageReads = lines.stream().filter(line -> line.startsWith("GET /packages/{id} "))
+                .findFirst().orElseThrow();
+        String[] columns = packageReads.substring("GET /packages/{id}".length()).trim().split("\\s+");
+        assertEquals("2", columns[0], "Unexpected request count: " + summary);
+        assertTrue(Double.parseDouble(columns[5]) >= 20.0, "Enrichment time not attributed to requests: " + summary);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("GET /packages ")), summary);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("getProduct not_found")), summary);
+        assertFalse(summary.contains("Currency conversions"), "Empty tables should be left out: " + summary);
+    }
+}
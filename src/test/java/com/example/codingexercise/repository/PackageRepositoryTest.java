@@ -0,0 +1,113 @@
+package com.example.codingexercise.repository;
+
+import com.example.codingexercise.gateway.dto.PackageFilter;
+import com.example.codingexercise.model.ProductPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class PackageRepositoryTest {
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @BeforeEach
+    void setUp() {
+        packageRepository.deleteAll();
+        for (int i = 1; i <= 5; i++) {
+            ProductPackage productPackage = new ProductPackage();
+            productPackage.setName("Package " + i);
+            productPackage.setProductIds(List.of("prod" + i, "shared"));
+            productPackage.setPrice(100.0 * i);
+            packageRepository.save(productPackage);
+        }
+    }
+
+    @Test
+    void streamAllOrderById_walksEveryBatch() {
+        try (Stream<ProductPackage> productPackages = packageRepository.streamAllOrderById(2)) {
+            List<String> names = productPackages.map(ProductPackage::getName).toList();
+            assertEquals(List.of("Package 1", "Package 2", "Package 3", "Package 4", "Package 5"), names);
+        }
+    }
+
+    @Test
+    void search_byProductId_returnsEachPackageOnce() {
+        assertEquals(List.of("Package 2"), search(new PackageFilter("prod2", null, null, null), null));
+        assertEquals(5, search(new PackageFilter("shared", null, null, null), null).size());
+    }
+
+    @Test
+    void search_byNamePrefix_escapesWildcards() {
+        assertEquals(5, search(new PackageFilter(null, "Pack", null, null), null).size());
+        assertEquals(List.of(), search(new PackageFilter(null, "Pack%", null, null), null));
+    }
+
+    @Test
+    void search_byPriceRange_continuesAfterCursor() {
+        List<ProductPackage> firstPage = packageRepository.findBy(
+                PackageSpecifications.matching(new PackageFilter("shared", null, 200.0, 400.0), null),
+                query -> query.sortBy(Sort.by("id")).limit(2).all());
+        Long cursor = firstPage.get(firstPage.size() - 1).getId();
+
+        assertEquals(List.of("Package 2", "Package 3"), firstPage.stream().map(ProductPackage::getName).toList());
+        assertEquals(List.of("Package 4"), search(new PackageFilter("shared", null, 200.0, 400.0), cursor));
+    }
+
+    @Test
+    void updatePrice_changesStoredPrice() {
+        Long id = packageRepository.findAllByOrderByIdAsc(PageRequest.of(0, 1)).get(0).getId();
+
+        packageRepository.updatePrice(id, 42.0, Instant.now());
+
+        assertEquals(List.of("Package 1"), search(new PackageFilter(null, null, null, 50.0), null));
+    }
+
+    @Test
+    void updatePrice_incrementsVersion() {
+        ProductPackage productPackage = packageRepository.findAllByOrderByIdAsc(PageRequest.of(0, 1)).get(0);
+        Long version = productPackage.getVersion();
+
+        packageRepository.updatePrice(productPackage.getId(), 42.0, Instant.now());
+
+        assertEquals(version + 1, packageRepository.findById(productPackage.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void save_staleVersion_failsInsteadOfOverwriting() {
+        ProductPackage productPackage = packageRepository.findAllByOrderByIdAsc(PageRequest.of(0, 1)).get(0);
+        ProductPackage stale = new ProductPackage();
+        stale.setId(productPackage.getId());
+        stale.setName("Stale");
+        stale.setProductIds(new ArrayList<>(List.of("prod1")));
+        stale.setVersion(productPackage.getVersion());
+        packageRepository.updatePrice(productPackage.getId(), 42.0, Instant.now());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> packageRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    void streamAllOrderById_batchSizeMatchesCatalog() {
+        try (Stream<ProductPackage> productPackages = packageRepository.streamAllOrderById(5)) {
+            assertEquals(5, productPackages.count());
+        }
+    }
+
+    private List<String> search(PackageFilter filter, Long after) {
+        return packageRepository.findBy(PackageSpecifications.matching(filter, after),
+                        query -> query.sortBy(Sort.by("id")).all())
+                .stream().map(ProductPackage::getName).toList();
+    }
+}
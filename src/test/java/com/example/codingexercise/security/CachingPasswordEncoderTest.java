@@ -0,0 +1,66 @@
+package com.example.codingexercise.security;
+
+import com.example.codingexercise.config.CredentialCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingPasswordEncoderTest {
+
+    private final PasswordEncoder bcrypt = spy(new BCryptPasswordEncoder(4));
+    private final String encodedPassword = bcrypt.encode("pass");
+
+    private CredentialCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CredentialCacheProperties();
+        clearInvocations(bcrypt);
+    }
+
+    @Test
+    void matches_verifiedCredential_checkedOnce() {
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(bcrypt, properties, new SimpleMeterRegistry());
+
+        assertTrue(encoder.matches("pass", encodedPassword));
+        assertTrue(encoder.matches("pass", encodedPassword));
+        assertTrue(encoder.matches("pass", encodedPassword));
+
+        verify(bcrypt, times(1)).matches("pass", encodedPassword);
+    }
+
+    @Test
+    void matches_wrongPassword_neverCached() {
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(bcrypt, properties, new SimpleMeterRegistry());
+
+        assertFalse(encoder.matches("wrong", encodedPassword));
+        assertFalse(encoder.matches("wrong", encodedPassword));
+
+        verify(bcrypt, times(2)).matches("wrong", encodedPassword);
+    }
+
+    @Test
+    void matches_changedPasswordHash_checkedAgain() {
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(bcrypt, properties, new SimpleMeterRegistry());
+        String otherEncodedPassword = bcrypt.encode("other");
+
+        assertTrue(encoder.matches("pass", encodedPassword));
+        assertFalse(encoder.matches("pass", otherEncodedPassword));
+    }
+
+    @Test
+    void matches_disabled_alwaysDelegates() {
+        properties.setEnabled(false);
+        CachingPasswordEncoder encoder = new CachingPasswordEncoder(bcrypt, properties, new SimpleMeterRegistry());
+
+        encoder.matches("pass", encodedPassword);
+        encoder.matches("pass", encodedPassword);
+
+        verify(bcrypt, times(2)).matches("pass", encodedPassword);
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.config.ProductLookupProperties;
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.BulkItemResult;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PackageBulkServiceTest {
+
+    @Mock
+    private PackageRepository packageRepository;
+
+    @Mock
+    private ProductServiceGateway productServiceGateway;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PackageChangeFeed packageChangeFeed;
+
+    private final PackageProperties packageProperties = new PackageProperties();
+    private PackageBulkService packageBulkService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ProductResolver productResolver = new ProductResolver(productServiceGateway, ForkJoinPool.commonPool(),
+                new ProductLookupProperties(), new SimpleMeterRegistry());
+        PackageReadModel packageReadModel = new PackageReadModel(productResolver, Runnable::run, packageProperties);
+        packageBulkService = new PackageBulkService(packageRepository, productResolver, packageReadModel,
+                new ProductPackageIndex(packageRepository), packageProperties, transactionManager,
+                packageChangeFeed);
+        when(productServiceGateway.getProduct(anyString())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            return id.startsWith("missing") ? null : new Product(id, "Prod " + id, 100);
+        });
+    }
+
+    private ProductPackageDto packageDto(Long id, String... productIds) {
+        ProductPackageDto productPackageDto = new ProductPackageDto();
+        productPackageDto.setId(id);
+        productPackageDto.setName("Package");
+        productPackageDto.setProductIds(List.of(productIds));
+        return productPackageDto;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void saveAllAssigningIds() {
+        AtomicLong ids = new AtomicLong();
+        when(packageRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<ProductPackage> productPackages = new ArrayList<>();
+            ((Iterable<ProductPackage>) invocation.getArgument(0)).forEach(productPackage -> {
+                productPackage.setId(ids.incrementAndGet());
+                productPackages.add(productPackage);
+            });
+            return productPackages;
+        });
+    }
+
+    private ProductPackage productPackage(Long id, String... productIds) {
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setId(id);
+        productPackage.setName("Old name");
+        productPackage.setProductIds(new ArrayList<>(List.of(productIds)));
+        return productPackage;
+    }
+
+    @Test
+    void createAll_savesValidPackagesInOneBatch() {
+        saveAllAssigningIds();
+
+        List<BulkItemResult> results = packageBulkService.createAll(List.of(
+                packageDto(null, "prod1", "prod2"),
+                packageDto(null, "prod1", "missing1"),
+                packageDto(null),
+                packageDto(null, "prod2")));
+
+        assertEquals(4, results.size());
+        assertEquals(new BulkItemResult(0, 200, 1L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, 400, null, "Provided productId: missing1 not found"), results.get(1));
+        assertEquals(400, results.get(2).status());
+        assertEquals(new BulkItemResult(3, 200, 2L, null), results.get(3));
+        verify(packageRepository, times(1)).saveAll(anyIterable());
+        verify(packageRepository, never()).save(any());
+        verify(packageChangeFeed, times(2)).created(any());
+    }
+
+    @Test
+    void createAll_looksUpEachDistinctProductOnce() {
+        saveAllAssigningIds();
+
+        packageBulkService.createAll(List.of(
+                packageDto(null, "prod1", "prod2"),
+                packageDto(null, "prod2", "prod1"),
+                packageDto(null, "prod1")));
+
+        verify(productServiceGateway, times(1)).getProduct("prod1");
+        verify(productServiceGateway, times(1)).getProduct("prod2");
+    }
+
+    @Test
+    void createAll_tooManyPackages_throwsException() {
+        packageProperties.setMaxBulkSize(2);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> packageBulkService.createAll(Collections.nCopies(3, packageDto(null, "prod1"))));
+        verifyNoInteractions(packageRepository);
+    }
+
+    @Test
+    void updateAll_reportsEachPackage() {
+        ProductPackage existing = productPackage(1L, "prod1");
+        when(packageRepository.findAllById(anyIterable())).thenReturn(List.of(existing));
+
+        List<BulkItemResult> results = packageBulkService.updateAll(List.of(
+                packageDto(1L, "prod2", "prod3"),
+                packageDto(2L, "prod1"),
+                packageDto(null, "prod1"),
+                packageDto(1L, "prod1")));
+
+        assertEquals(new BulkItemResult(0, 200, 1L, null), results.get(0));
+        assertEquals(new BulkItemResult(1, 404, 2L, "Provided packageId: 2 not found"), results.get(1));
+        assertEquals(400, results.get(2).status());
+        assertEquals(400, results.get(3).status());
+        assertEquals("Package", existing.getName());
+        assertEquals(List.of("prod2", "prod3"), existing.getProductIds());
+        verify(packageRepository, times(1)).findAllById(anyIterable());
+        verify(packageRepository, never()).findById(any());
+        verify(transactionManager).commit(any());
+        verify(packageChangeFeed).updated(argThat(productPackage -> productPackage.getId() == 1L));
+    }
+}
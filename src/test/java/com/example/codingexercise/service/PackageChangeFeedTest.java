@@ -0,0 +1,138 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.exception.TooManySubscribersException;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PackageChangeFeedTest {
+
+    // sends are queued but never run, as for a subscriber whose writes are stuck
+    private final List<Runnable> sends = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PackageChangeFeed packageChangeFeed;
+
+    @BeforeEach
+    void setUp() {
+        PackageProperties packageProperties = new PackageProperties();
+        packageProperties.getStream().setSubscriberBufferSize(2);
+        packageProperties.getStream().setMaxSubscribers(2);
+        packageChangeFeed = new PackageChangeFeed(new ObjectMapper(), sends::add, packageProperties,
+                mock(TaskScheduler.class), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static ProductPackageDto productPackage(Long id) {
+        ProductPackageDto productPackage = new ProductPackageDto();
+        productPackage.setId(id);
+        productPackage.setName("Package " + id);
+        return productPackage;
+    }
+
+    // runs the sends queued so far, which only buffer on an emitter that isn't attached to a response yet
+    private void runSends() {
+        List<Runnable> queued = new ArrayList<>(sends);
+        sends.clear();
+        queued.forEach(Runnable::run);
+    }
+
+    private double subscribers() {
+        return meterRegistry.get("packages.stream.subscribers").gauge().value();
+    }
+
+    @Test
+    void publish_slowSubscriber_disconnected() {
+        packageChangeFeed.subscribe(null);
+        packageChangeFeed.created(productPackage(1L));
+        packageChangeFeed.updated(productPackage(1L));
+        assertEquals(1, subscribers());
+
+        packageChangeFeed.deleted(1L);
+
+        assertEquals(0, subscribers(), "Subscriber with a full queue should be dropped");
+        assertEquals(1, meterRegistry.get("packages.stream.disconnected").counter().count());
+        assertEquals(1, sends.size(), "Only one send should be scheduled per subscriber at a time");
+    }
+
+    @Test
+    void publish_stuckSubscriber_othersStillSent() {
+        packageChangeFeed.subscribe(null);
+        packageChangeFeed.subscribe(null);
+        assertEquals(2, sends.size(), "Every subscriber should be written to from its own send");
+        Runnable stuck = sends.remove(0);
+        runSends();
+
+        packageChangeFeed.deleted(1L);
+
+        assertEquals(1, sends.size(), "The other subscriber should get the event while the first send is stuck");
+        assertNotSame(stuck, sends.get(0));
+    }
+
+    @Test
+    void subscribe_limitReached_refused() {
+        packageChangeFeed.subscribe(null);
+        packageChangeFeed.subscribe(null);
+
+        assertThrows(TooManySubscribersException.class, () -> packageChangeFeed.subscribe(null));
+        assertEquals(2, subscribers());
+    }
+
+    @Test
+    void publish_noSenderThread_dropsSubscriberOnly() {
+        SimpleMeterRegistry saturatedRegistry = new SimpleMeterRegistry();
+        PackageChangeFeed saturated = new PackageChangeFeed(new ObjectMapper(), task -> {
+            throw new RejectedExecutionException("saturated");
+        }, new PackageProperties(), mock(TaskScheduler.class), saturatedRegistry);
+
+        saturated.subscribe(null);
+        assertDoesNotThrow(() -> saturated.deleted(1L), "Publishing should not fail for want of a sender thread");
+
+        assertEquals(0, saturatedRegistry.get("packages.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void publish_insideTransaction_waitsForCommit() {
+        packageChangeFeed.subscribe(null);
+        runSends();
+        TransactionSynchronizationManager.initSynchronization();
+
+        packageChangeFeed.deleted(1L);
+
+        assertTrue(sends.isEmpty(), "Event should not be sent before the commit");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, sends.size());
+    }
+
+    @Test
+    void publish_rolledBack_notSent() {
+        packageChangeFeed.subscribe(null);
+        runSends();
+        TransactionSynchronizationManager.initSynchronization();
+
+        packageChangeFeed.deleted(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertTrue(sends.isEmpty(), "Rolled back write should not be sent");
+    }
+}
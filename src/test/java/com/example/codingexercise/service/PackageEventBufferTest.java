@@ -0,0 +1,48 @@
+package com.example.codingexercise.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackageEventBufferTest {
+
+    private static List<Long> sequences(List<PackageEventBuffer.Entry> entries) {
+        return entries.stream().map(PackageEventBuffer.Entry::sequence).toList();
+    }
+
+    @Test
+    void after_returnsEventsInOrder() {
+        PackageEventBuffer buffer = new PackageEventBuffer(4);
+        buffer.append("created", "{\"id\":1}");
+        buffer.append("updated", "{\"id\":1}");
+        buffer.append("deleted", "{\"id\":1}");
+
+        assertEquals(List.of(2L, 3L), sequences(buffer.after(1)));
+        assertEquals(List.of(1L, 2L, 3L), sequences(buffer.after(0)));
+        assertEquals(List.of(), buffer.after(3), "Nothing was missed after the latest event");
+        assertEquals("updated", buffer.after(1).get(0).type());
+    }
+
+    @Test
+    void after_overwrittenEvents_null() {
+        PackageEventBuffer buffer = new PackageEventBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.append("created", "{}");
+        }
+
+        assertEquals(List.of(3L, 4L, 5L), sequences(buffer.after(2)), "The oldest event kept can still be replayed");
+        assertNull(buffer.after(1), "Event 2 has been overwritten");
+        assertNull(buffer.after(0));
+    }
+
+    @Test
+    void after_sequenceNotHandedOut_null() {
+        PackageEventBuffer buffer = new PackageEventBuffer(3);
+        buffer.append("created", "{}");
+
+        assertNull(buffer.after(2));
+        assertNull(buffer.after(-1));
+    }
+}
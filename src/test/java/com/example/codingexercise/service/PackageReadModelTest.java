@@ -0,0 +1,204 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.MutableClock;
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PackageReadModelTest {
+
+    @Mock
+    private ProductResolver productResolver;
+
+    private final MutableClock clock = new MutableClock();
+    private final List<Runnable> scheduledRefreshes = new ArrayList<>();
+    private final Executor refreshExecutor = scheduledRefreshes::add;
+
+    private PackageProperties packageProperties;
+    private PackageReadModel packageReadModel;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        packageProperties = new PackageProperties();
+        packageProperties.getReadModel().setEnabled(true);
+        packageProperties.getReadModel().setFreshness(Duration.ofMinutes(5));
+        packageReadModel = new PackageReadModel(productResolver, refreshExecutor, packageProperties, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_returnsIndependentCopies() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+
+        ProductPackageDto first = packageReadModel.get(1L);
+        first.setPrice(1.0);
+        ProductPackageDto second = packageReadModel.get(1L);
+
+        assertEquals(100.0, second.getPrice());
+        assertEquals("Package 1", second.getName());
+        assertEquals(1, second.getProducts().size());
+    }
+
+    @Test
+    void get_unknownPackage_returnsNull() {
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void get_disabled_returnsNull() {
+        packageProperties.getReadModel().setEnabled(false);
+
+        packageReadModel.put(resolvedPackage(1L, 100));
+
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void get_stale_servesSnapshotAndRefreshesInBackground() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        when(productResolver.resolve(List.of("prod1"))).thenReturn(List.of(new Product("prod1", "Prod 1", 150)));
+
+        clock.advance(Duration.ofMinutes(10));
+        assertEquals(100.0, packageReadModel.get(1L).getPrice());
+        assertEquals(100.0, packageReadModel.get(1L).getPrice());
+        assertEquals(1, scheduledRefreshes.size(), "Only one refresh per package should be in flight");
+
+        scheduledRefreshes.get(0).run();
+
+        assertEquals(150.0, packageReadModel.get(1L).getPrice());
+        verify(productResolver, times(1)).resolve(List.of("prod1"));
+    }
+
+    @Test
+    void refresh_doesNotOverwriteNewerSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        when(productResolver.resolve(List.of("prod1"))).thenReturn(List.of(new Product("prod1", "Prod 1", 150)));
+        clock.advance(Duration.ofMinutes(10));
+        packageReadModel.get(1L);
+
+        packageReadModel.put(resolvedPackage(1L, 2L, 300));
+        scheduledRefreshes.get(0).run();
+
+        ProductPackageDto snapshot = packageReadModel.get(1L);
+        assertEquals(300.0, snapshot.getPrice());
+        assertEquals(2L, snapshot.getVersion());
+    }
+
+    @Test
+    void put_olderVersion_keepsNewerSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 2L, 300));
+
+        // a read that loaded version 1 before the update finishes after it
+        packageReadModel.put(resolvedPackage(1L, 1L, 100));
+
+        ProductPackageDto snapshot = packageReadModel.get(1L);
+        assertEquals(300.0, snapshot.getPrice());
+        assertEquals(2L, snapshot.getVersion());
+    }
+
+    @Test
+    void put_sameVersion_replacesSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 1L, 100));
+
+        packageReadModel.put(resolvedPackage(1L, 1L, 150));
+
+        assertEquals(150.0, packageReadModel.get(1L).getPrice());
+    }
+
+    @Test
+    void remove_dropsSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+
+        packageReadModel.remove(1L);
+
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void remove_readCompletingAfterDelete_doesNotRestoreSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        // loaded before the delete, its products resolved after it
+        ProductPackageDto inFlight = resolvedPackage(1L, 100);
+
+        packageReadModel.remove(1L);
+        packageReadModel.put(inFlight);
+
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void remove_refreshCompletingAfterDelete_doesNotRestoreSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        when(productResolver.resolve(List.of("prod1"))).thenReturn(List.of(new Product("prod1", "Prod 1", 150)));
+        clock.advance(Duration.ofMinutes(10));
+        packageReadModel.get(1L);
+
+        packageReadModel.remove(1L);
+        scheduledRefreshes.get(0).run();
+
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void remove_insideTransaction_waitsForCommit() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        TransactionSynchronizationManager.initSynchronization();
+
+        packageReadModel.remove(1L);
+        // a read putting the package back before the delete commits
+        packageReadModel.put(resolvedPackage(1L, 100));
+        assertNotNull(packageReadModel.get(1L), "Snapshot should stay until the delete commits");
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertNull(packageReadModel.get(1L));
+    }
+
+    @Test
+    void remove_rolledBack_keepsSnapshot() {
+        packageReadModel.put(resolvedPackage(1L, 100));
+        TransactionSynchronizationManager.initSynchronization();
+
+        packageReadModel.remove(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertNotNull(packageReadModel.get(1L));
+    }
+
+    private ProductPackageDto resolvedPackage(Long id, int usdPrice) {
+        return resolvedPackage(id, 1L, usdPrice);
+    }
+
+    private ProductPackageDto resolvedPackage(Long id, Long version, int usdPrice) {
+        ProductPackageDto dto = new ProductPackageDto();
+        dto.setId(id);
+        dto.setVersion(version);
+        dto.setName("Package " + id);
+        dto.setDescription("Desc " + id);
+        dto.setProductIds(List.of("prod1"));
+        PackageService.setProducts(dto, List.of(new Product("prod1", "Prod 1", usdPrice)));
+        return dto;
+    }
+}
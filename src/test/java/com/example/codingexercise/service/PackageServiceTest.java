@@ -1,28 +1,43 @@
 package com.example.codingexercise.service;
 
+import com.example.codingexercise.config.PackageProperties;
+import com.example.codingexercise.config.ProductLookupProperties;
 import com.example.codingexercise.exception.RecordNotFoundException;
 import com.example.codingexercise.gateway.CurrencyServiceGateway;
 import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.PackageFilter;
 import com.example.codingexercise.gateway.dto.Product;
 import com.example.codingexercise.gateway.dto.ProductPackageDto;
+import com.example.codingexercise.gateway.dto.ProductPackagePage;
 import com.example.codingexercise.model.ProductPackage;
 import com.example.codingexercise.repository.PackageRepository;
+import com.example.codingexercise.repository.PackageTombstoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class PackageServiceTests {
 
+    private static final PackageFilter NO_FILTER = new PackageFilter(null, null, null, null);
+
     @Mock
     private PackageRepository packageRepository;
 
@@ -32,12 +47,26 @@ class PackageServiceTests {
     @Mock
     private CurrencyServiceGateway currencyServiceGateway;
 
-    @InjectMocks
+    @Mock
+    private PackageTombstoneRepository packageTombstoneRepository;
+
+    @Mock
+    private PackageChangeFeed packageChangeFeed;
+
     private PackageService packageService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        packageService = newPackageService(new PackageProperties());
+    }
+
+    private PackageService newPackageService(PackageProperties packageProperties) {
+        ProductResolver productResolver = new ProductResolver(productServiceGateway, ForkJoinPool.commonPool(),
+                new ProductLookupProperties(), new SimpleMeterRegistry());
+        PackageReadModel packageReadModel = new PackageReadModel(productResolver, Runnable::run, packageProperties);
+        return new PackageService(packageRepository, productResolver, currencyServiceGateway, packageReadModel,
+                new ProductPackageIndex(packageRepository), packageTombstoneRepository, packageChangeFeed);
     }
 
     @Test
@@ -50,15 +79,21 @@ class PackageServiceTests {
         Product product = new Product("prod1", "Prod 1", 100 );
 
         when(productServiceGateway.getProduct("prod1")).thenReturn(product);
-        when(packageRepository.save(any(ProductPackage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(packageRepository.save(any(ProductPackage.class))).thenAnswer(invocation -> {
+            ProductPackage saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
 
         ProductPackageDto result = packageService.create(productPackageDto);
 
         assertNotNull(result);
+        verify(packageRepository).save(argThat(saved -> saved.getPrice() == 100.0));
         assertEquals("Test Name", result.getName());
         assertEquals("Test Desc", result.getDescription());
         assertEquals(1, result.getProductIds().size());
         assertEquals(100.0, result.getPrice());
+        verify(packageChangeFeed).created(result);
     }
 
     @Test
@@ -111,6 +146,21 @@ class PackageServiceTests {
         assertEquals(85.0, result.getPrice());
     }
 
+    @Test
+    void addConvertedPrices_singleRateLookupForAllPackages() {
+        ProductPackageDto first = new ProductPackageDto();
+        first.setPrice(100);
+        ProductPackageDto second = new ProductPackageDto();
+        second.setPrice(200);
+        when(currencyServiceGateway.usdRates(any())).thenReturn(Map.of("EUR", 0.85, "GBP", 0.75));
+
+        packageService.addConvertedPrices(List.of(first, second), List.of("EUR", "GBP", "EUR"));
+
+        assertEquals(Map.of("EUR", 85.0, "GBP", 75.0), first.getPrices());
+        assertEquals(Map.of("EUR", 170.0, "GBP", 150.0), second.getPrices());
+        verify(currencyServiceGateway, times(1)).usdRates(Set.of("EUR", "GBP"));
+    }
+
     @Test
     void getProductPackage_success() {
         ProductPackage productPackage = new ProductPackage();
@@ -130,6 +180,61 @@ class PackageServiceTests {
         assertEquals(100.0, result.getPrice());
     }
 
+    @Test
+    void getProductPackageWithCurrencyAsync_success() {
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setId(1L);
+        productPackage.setName("Test Name");
+        productPackage.setProductIds(Arrays.asList("prod1", "prod2"));
+
+        when(packageRepository.findById(1L)).thenReturn(Optional.of(productPackage));
+        when(productServiceGateway.getProductAsync("prod1"))
+                .thenReturn(CompletableFuture.completedFuture(new Product("prod1", "Prod 1", 100)));
+        when(productServiceGateway.getProductAsync("prod2"))
+                .thenReturn(CompletableFuture.completedFuture(new Product("prod2", "Prod 2", 50)));
+        when(currencyServiceGateway.convertUsdToAsync(150.0, "EUR")).thenReturn(CompletableFuture.completedFuture(127.5));
+
+        ProductPackageDto result = packageService.getProductPackageWithCurrencyAsync(1L, "EUR").join();
+
+        assertEquals(2, result.getProducts().size());
+        assertEquals(127.5, result.getPrice());
+        verify(productServiceGateway, never()).getProduct(any());
+    }
+
+    @Test
+    void getProductPackageAsync_notFound_throwsException() {
+        when(packageRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(RecordNotFoundException.class, () -> packageService.getProductPackageAsync(1L));
+    }
+
+    @Test
+    void getProductPackage_readModelEnabled_servesSnapshotWrittenOnCreate() {
+        PackageProperties packageProperties = new PackageProperties();
+        packageProperties.getReadModel().setEnabled(true);
+        PackageService readModelPackageService = newPackageService(packageProperties);
+
+        ProductPackageDto productPackageDto = new ProductPackageDto();
+        productPackageDto.setName("Test Name");
+        productPackageDto.setDescription("Test Desc");
+        productPackageDto.setProductIds(Arrays.asList("prod1"));
+
+        when(productServiceGateway.getProduct("prod1")).thenReturn(new Product("prod1", "Prod 1", 100));
+        when(packageRepository.save(any(ProductPackage.class))).thenAnswer(invocation -> {
+            ProductPackage saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        readModelPackageService.create(productPackageDto);
+
+        ProductPackageDto result = readModelPackageService.getProductPackage(1L);
+
+        assertEquals("Test Name", result.getName());
+        assertEquals(100.0, result.getPrice());
+        verify(packageRepository, never()).findById(1L);
+        verify(productServiceGateway, times(1)).getProduct("prod1");
+    }
+
     @Test
     void getProductPackage_notFound_throwsException() {
         when(packageRepository.findById(1L)).thenReturn(Optional.empty());
@@ -170,6 +275,67 @@ class PackageServiceTests {
         assertEquals(200.0, result.get(1).getPrice());
     }
 
+    @Test
+    void getProductPackagePage_hasNextPage() {
+        ProductPackage productPackage1 = new ProductPackage();
+        productPackage1.setId(1L);
+        productPackage1.setName("Test Name 1");
+        productPackage1.setProductIds(Arrays.asList("prod1"));
+
+        ProductPackage productPackage2 = new ProductPackage();
+        productPackage2.setId(2L);
+        productPackage2.setName("Test Name 2");
+        productPackage2.setProductIds(Arrays.asList("prod1"));
+
+        when(packageRepository.findAllByOrderByIdAsc(PageRequest.of(0, 2))).thenReturn(Arrays.asList(productPackage1, productPackage2));
+        when(productServiceGateway.getProduct("prod1")).thenReturn(new Product("prod1", "Prod 1", 100));
+
+        ProductPackagePage result = packageService.getProductPackagePage(null, 1, NO_FILTER, true);
+
+        assertEquals(1, result.packages().size());
+        assertEquals(1L, result.packages().get(0).getId());
+        assertEquals(100.0, result.packages().get(0).getPrice());
+        assertEquals(1L, result.nextCursor());
+    }
+
+    @Test
+    void getProductPackagePage_lastPage() {
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setId(2L);
+        productPackage.setName("Test Name 2");
+        productPackage.setProductIds(Arrays.asList("prod1"));
+
+        when(packageRepository.findByIdGreaterThanOrderByIdAsc(1L, PageRequest.of(0, 11))).thenReturn(Arrays.asList(productPackage));
+        when(productServiceGateway.getProduct("prod1")).thenReturn(new Product("prod1", "Prod 1", 100));
+
+        ProductPackagePage result = packageService.getProductPackagePage(1L, 10, NO_FILTER, true);
+
+        assertEquals(1, result.packages().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void streamProductPackages_enrichesEachPackage() {
+        ProductPackage productPackage1 = new ProductPackage();
+        productPackage1.setId(1L);
+        productPackage1.setProductIds(Arrays.asList("prod1"));
+
+        ProductPackage productPackage2 = new ProductPackage();
+        productPackage2.setId(2L);
+        productPackage2.setProductIds(Arrays.asList("prod2"));
+
+        when(packageRepository.streamAllOrderById(anyInt())).thenReturn(Stream.of(productPackage1, productPackage2));
+        when(productServiceGateway.getProduct("prod1")).thenReturn(new Product("prod1", "Prod 1", 100));
+        when(productServiceGateway.getProduct("prod2")).thenReturn(new Product("prod2", "Prod 2", 200));
+
+        List<ProductPackageDto> streamed = new ArrayList<>();
+        packageService.streamProductPackages(streamed::add);
+
+        assertEquals(2, streamed.size());
+        assertEquals(100.0, streamed.get(0).getPrice());
+        assertEquals(200.0, streamed.get(1).getPrice());
+    }
+
     @Test
     void updatePackage_success() {
         ProductPackage existingPackage = new ProductPackage();
@@ -196,6 +362,7 @@ class PackageServiceTests {
         assertEquals("Updated Name", result.getName());
         assertEquals("Updated Desc", result.getDescription());
         assertEquals(200.0, result.getPrice());
+        verify(packageChangeFeed).updated(result);
     }
 
     @Test
@@ -228,6 +395,8 @@ class PackageServiceTests {
         packageService.delete(1L);
 
         verify(packageRepository, times(1)).delete(existingPackage);
+        verify(packageTombstoneRepository).save(argThat(tombstone -> tombstone.getPackageId().equals(1L)));
+        verify(packageChangeFeed).deleted(1L);
     }
 
     @Test
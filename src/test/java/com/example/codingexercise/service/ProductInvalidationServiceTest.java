@@ -0,0 +1,95 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.gateway.dto.ProductInvalidationResult;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductInvalidationServiceTest {
+
+    @Mock
+    private ProductServiceGateway productServiceGateway;
+
+    @Mock
+    private PackageReadModel packageReadModel;
+
+    @Mock
+    private PackageRepository packageRepository;
+
+    @Mock
+    private ProductResolver productResolver;
+
+    @Mock
+    private PackageChangeFeed packageChangeFeed;
+
+    private final ProductPackageIndex productPackageIndex = new ProductPackageIndex(null);
+    private ProductInvalidationService productInvalidationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productInvalidationService = new ProductInvalidationService(productServiceGateway, productPackageIndex,
+                packageReadModel, packageRepository, productResolver, packageChangeFeed);
+    }
+
+    @Test
+    void invalidate_refreshesOnlyAffectedPackages() {
+        productPackageIndex.add(1L, List.of("prod1", "prod2"));
+        productPackageIndex.add(2L, List.of("prod3"));
+        productPackageIndex.add(3L, List.of("prod2"));
+        when(packageRepository.findAllById(Set.of(1L, 3L)))
+                .thenReturn(List.of(productPackage(1L, "prod1", "prod2"), productPackage(3L, "prod2")));
+        when(productResolver.resolveAll(any())).thenReturn(Map.of(
+                "prod1", new Product("prod1", "Prod 1", 100), "prod2", new Product("prod2", "Prod 2", 250)));
+
+        ProductInvalidationResult result = productInvalidationService.invalidate(List.of("prod2", "prod2", "prod4"));
+
+        assertEquals(List.of("prod2", "prod4"), result.productIds());
+        assertEquals(List.of(1L, 3L), result.packageIds());
+        verify(productServiceGateway).evict("prod2");
+        verify(productServiceGateway).evict("prod4");
+        verify(packageRepository).updatePrice(eq(1L), eq(350.0), any());
+        verify(packageRepository).updatePrice(eq(3L), eq(250.0), any());
+        verify(packageReadModel).put(argThat(productPackage -> productPackage.getId() == 1L
+                && productPackage.getPrice() == 350.0));
+        verify(packageReadModel).put(argThat(productPackage -> productPackage.getId() == 3L));
+        verify(packageChangeFeed).updated(argThat(productPackage -> productPackage.getId() == 1L
+                && productPackage.getProducts().size() == 2));
+        verify(packageChangeFeed).updated(argThat(productPackage -> productPackage.getId() == 3L));
+    }
+
+    @Test
+    void invalidate_productInNoPackage_onlyEvicts() {
+        ProductInvalidationResult result = productInvalidationService.invalidate(List.of("prod1"));
+
+        assertEquals(List.of(), result.packageIds());
+        verify(productServiceGateway).evict("prod1");
+        verifyNoInteractions(packageRepository, packageReadModel, packageChangeFeed);
+    }
+
+    @Test
+    void invalidate_noProductIds_throws() {
+        assertThrows(IllegalArgumentException.class, () -> productInvalidationService.invalidate(List.of()));
+        verify(productServiceGateway, never()).evict(any());
+    }
+
+    private ProductPackage productPackage(Long id, String... productIds) {
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setId(id);
+        productPackage.setProductIds(List.of(productIds));
+        return productPackage;
+    }
+}
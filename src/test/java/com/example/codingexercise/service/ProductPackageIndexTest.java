@@ -0,0 +1,69 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+class ProductPackageIndexTest {
+
+    @Mock
+    private PackageRepository packageRepository;
+
+    private ProductPackageIndex productPackageIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productPackageIndex = new ProductPackageIndex(packageRepository);
+    }
+
+    @Test
+    void warmUp_indexesStoredPackages() {
+        when(packageRepository.streamAllOrderById(anyInt()))
+                .thenReturn(Stream.of(productPackage(1L, "prod1", "prod2"), productPackage(2L, "prod2")));
+
+        productPackageIndex.warmUp();
+
+        assertEquals(Set.of(1L), productPackageIndex.packagesContaining(List.of("prod1")));
+        assertEquals(Set.of(1L, 2L), productPackageIndex.packagesContaining(List.of("prod2")));
+    }
+
+    @Test
+    void replace_keepsRetainedAndDropsRemovedProducts() {
+        productPackageIndex.add(1L, List.of("prod1", "prod2"));
+
+        productPackageIndex.replace(1L, List.of("prod1", "prod2"), List.of("prod2", "prod3"));
+
+        assertEquals(Set.of(), productPackageIndex.packagesContaining(List.of("prod1")));
+        assertEquals(Set.of(1L), productPackageIndex.packagesContaining(List.of("prod2")));
+        assertEquals(Set.of(1L), productPackageIndex.packagesContaining(List.of("prod3")));
+    }
+
+    @Test
+    void remove_dropsPackage() {
+        productPackageIndex.add(1L, List.of("prod1"));
+        productPackageIndex.add(2L, List.of("prod1"));
+
+        productPackageIndex.remove(1L, List.of("prod1"));
+
+        assertEquals(Set.of(2L), productPackageIndex.packagesContaining(List.of("prod1", "unknown")));
+    }
+
+    private ProductPackage productPackage(Long id, String... productIds) {
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setId(id);
+        productPackage.setProductIds(List.of(productIds));
+        return productPackage;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.codingexercise.service;
+
+import com.example.codingexercise.config.ProductLookupProperties;
+import com.example.codingexercise.exception.UpstreamTimeoutException;
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductResolverTest {
+
+    @Mock
+    private ProductServiceGateway productServiceGateway;
+
+    private ExecutorService executor;
+    private ProductLookupProperties properties;
+    private ProductResolver productResolver;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = Executors.newFixedThreadPool(4);
+        properties = new ProductLookupProperties();
+        productResolver = new ProductResolver(productServiceGateway, executor, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resolve_keepsOrderAndLooksUpDuplicatesOnce() {
+        Product product1 = new Product("prod1", "Prod 1", 100);
+        Product product2 = new Product("prod2", "Prod 2", 200);
+        when(productServiceGateway.getProduct("prod1")).thenReturn(product1);
+        when(productServiceGateway.getProduct("prod2")).thenReturn(product2);
+
+        List<Product> result = productResolver.resolve(Arrays.asList("prod2", "missing", "prod1", "prod2"));
+
+        assertEquals(Arrays.asList(product2, null, product1, product2), result);
+        verify(productServiceGateway, times(1)).getProduct("prod2");
+    }
+
+    @Test
+    void resolve_sequential_keepsOrder() {
+        properties.setParallel(false);
+        Product product1 = new Product("prod1", "Prod 1", 100);
+        Product product2 = new Product("prod2", "Prod 2", 200);
+        when(productServiceGateway.getProduct("prod1")).thenReturn(product1);
+        when(productServiceGateway.getProduct("prod2")).thenReturn(product2);
+
+        List<Product> result = productResolver.resolve(Arrays.asList("prod2", "prod1"));
+
+        assertEquals(Arrays.asList(product2, product1), result);
+    }
+
+    @Test
+    void resolve_runsLookupsConcurrently() {
+        when(productServiceGateway.getProduct(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return new Product(invocation.getArgument(0), "Prod", 100);
+        });
+
+        long start = System.nanoTime();
+        List<Product> result = productResolver.resolve(Arrays.asList("prod1", "prod2", "prod3", "prod4"));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals(4, result.size());
+        assertTrue(elapsedMillis < 1200, "Lookups should overlap, took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void resolve_deadlineExceeded_throwsException() {
+        properties.setTimeout(Duration.ofMillis(100));
+        when(productServiceGateway.getProduct(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(2000);
+            return null;
+        });
+
+        assertThrows(UpstreamTimeoutException.class, () -> productResolver.resolve(Arrays.asList("prod1", "prod2")));
+    }
+
+    @Test
+    void resolve_propagatesGatewayFailure() {
+        when(productServiceGateway.getProduct("prod1")).thenThrow(new IllegalStateException("upstream down"));
+
+        assertThrows(IllegalStateException.class, () -> productResolver.resolve(Arrays.asList("prod1", "prod2")));
+    }
+
+    @Test
+    void resolveAsync_keepsOrderAndLooksUpDuplicatesOnce() {
+        Product product1 = new Product("prod1", "Prod 1", 100);
+        Product product2 = new Product("prod2", "Prod 2", 200);
+        CompletableFuture<Product> pending = new CompletableFuture<>();
+        when(productServiceGateway.getProductAsync("prod1")).thenReturn(CompletableFuture.completedFuture(product1));
+        when(productServiceGateway.getProductAsync("prod2")).thenReturn(pending);
+        when(productServiceGateway.getProductAsync("missing")).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<List<Product>> result = productResolver.resolveAsync(Arrays.asList("prod2", "missing", "prod1", "prod2"));
+        assertFalse(result.isDone(), "Result should wait for the pending lookup");
+        pending.complete(product2);
+
+        assertEquals(Arrays.asList(product2, null, product1, product2), result.join());
+        verify(productServiceGateway, times(1)).getProductAsync("prod2");
+        verify(productServiceGateway, never()).getProduct(anyString());
+    }
+
+    @Test
+    void resolveAsync_deadlineExceeded_failsWithTimeout() {
+        properties.setTimeout(Duration.ofMillis(100));
+        when(productServiceGateway.getProductAsync(anyString())).thenReturn(new CompletableFuture<>());
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> productResolver.resolveAsync(Arrays.asList("prod1", "prod2")).join());
+        assertInstanceOf(UpstreamTimeoutException.class, failure.getCause());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.codingexercise.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestStagesTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestStages.end();
+    }
+
+    @Test
+    void toHeader_sumsEachStage() {
+        RequestStages stages = RequestStages.begin();
+        stages.add(RequestStages.PRODUCT, 2_000_000);
+        stages.add(RequestStages.PRODUCT, 1_500_000);
+        stages.add(RequestStages.DB, 250_000);
+
+        assertTrue(stages.toHeader().matches("db;dur=0\\.3, product;dur=3\\.5, app;dur=[0-9.]+"), stages.toHeader());
+    }
+
+    @Test
+    void record_outsideOfRequest_isIgnored() {
+        RequestStages.record(RequestStages.DB, System.nanoTime());
+
+        assertNull(RequestStages.current());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.codingexercise.timing;
+
+import com.example.codingexercise.gateway.ProductServiceGateway;
+import com.example.codingexercise.gateway.dto.Product;
+import com.example.codingexercise.model.ProductPackage;
+import com.example.codingexercise.repository.PackageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server-timing.enabled=true")
+class ServerTimingTests {
+
+    @MockBean
+    private ProductServiceGateway productServiceGateway;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private PackageRepository packageRepository;
+
+    @Test
+    void getPackage_reportsStages() {
+        when(productServiceGateway.getProduct(anyString()))
+                .thenAnswer(invocation -> new Product(invocation.getArgument(0), "Prod", 100));
+        ProductPackage productPackage = new ProductPackage();
+        productPackage.setName("Timed");
+        productPackage.setProductIds(List.of("prod1", "prod2"));
+        Long id = packageRepository.save(productPackage).getId();
+
+        ResponseEntity<String> response = restTemplate.withBasicAuth("user", "pass")
+                .getForEntity("/packages/{id}", String.class, id);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), "Unexpected status code");
+        String serverTiming = response.getHeaders().getFirst(ServerTimingAdvice.SERVER_TIMING);
+        assertNotNull(serverTiming, "Server-Timing header missing");
+        assertTrue(serverTiming.matches("db;dur=[0-9.]+, product;dur=[0-9.]+, app;dur=[0-9.]+"),
+                "Unexpected Server-Timing header: " + serverTiming);
+    }
+}
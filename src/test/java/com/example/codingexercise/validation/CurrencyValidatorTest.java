@@ -0,0 +1,23 @@
+package com.example.codingexercise.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CurrencyValidatorTest {
+
+    @Test
+    void validate_validList_passes() {
+        assertDoesNotThrow(() -> CurrencyValidator.validate(List.of("USD", "EUR", "JPY")));
+    }
+
+    @Test
+    void validate_invalidList_reportsEveryInvalidCurrency() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> CurrencyValidator.validate(List.of("EUR", "XYZ", "GBP", "ABC")));
+
+        assertEquals("Invalid currencies: XYZ, ABC", exception.getMessage());
+    }
+}